@@ -0,0 +1,101 @@
+package training.chessington.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import training.chessington.model.Board;
+import training.chessington.model.Coordinates;
+import training.chessington.model.Game;
+import training.chessington.model.InvalidMoveException;
+import training.chessington.model.Move;
+import training.chessington.model.MoveList;
+import training.chessington.model.PlayerColour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Run with -prof gc to see bytes allocated per operation alongside the throughput
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Position position;
+
+    private Game game;
+    private PlayerColour opponent;
+    private final List<Coordinates> ownPieces = new ArrayList<>();
+    private final List<Move> allowedMoves = new ArrayList<>();
+    private final MoveList legalMoves = new MoveList();
+
+    @Setup
+    public void setUp() {
+        game = position.load();
+        opponent = game.getGameInfo().getNextPlayer().opponent();
+        for (long pieces = game.getBoard().getOccupancy(game.getGameInfo().getNextPlayer()); pieces != 0; pieces &= pieces - 1) {
+            Coordinates square = Coordinates.fromSquare(Long.numberOfTrailingZeros(pieces));
+            ownPieces.add(square);
+            allowedMoves.addAll(game.getAllowedMoves(square));
+        }
+        game.generateLegalMoves(legalMoves);
+    }
+
+    @Benchmark
+    public void getAllowedMoves(Blackhole blackhole) {
+        for (Coordinates square : ownPieces) {
+            blackhole.consume(game.getAllowedMoves(square));
+        }
+    }
+
+    @Benchmark
+    public void generateLegalMoves(Blackhole blackhole) {
+        legalMoves.clear();
+        game.generateLegalMoves(legalMoves);
+        blackhole.consume(legalMoves.size());
+    }
+
+    @Benchmark
+    public void makeMove(Blackhole blackhole) throws InvalidMoveException {
+        // The public API validates and checks for game over, and mutates the game, so each move gets a copy
+        for (Move move : allowedMoves) {
+            Game copy = game.createCopy();
+            copy.makeMove(move);
+            blackhole.consume(copy);
+        }
+    }
+
+    @Benchmark
+    public void makeAndUnmakeMove(Blackhole blackhole) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            game.makeMove(legalMoves.get(i));
+            blackhole.consume(game.getBoard().getOccupancy());
+            game.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public Board boardCreateCopy() {
+        return game.getBoard().createCopy();
+    }
+
+    @Benchmark
+    public void squareIsThreatenedByColour(Blackhole blackhole) {
+        for (int square = 0; square < Game.SIZE * Game.SIZE; square++) {
+            blackhole.consume(game.squareIsThreatenedByColour(Coordinates.fromSquare(square), opponent));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package training.chessington.bench;
+
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+
+public enum Position {
+    OPENING("r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3"),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+    ENDGAME("8/5pk1/6p1/8/3R4/6P1/5PK1/r7 w - - 0 40");
+
+    private final String fen;
+
+    Position(String fen) {
+        this.fen = fen;
+    }
+
+    public Game load() {
+        return Fen.parse(fen);
+    }
+}
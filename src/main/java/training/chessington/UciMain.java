@@ -0,0 +1,261 @@
+package training.chessington;
+
+import training.chessington.engine.SearchLimits;
+import training.chessington.engine.SearchResult;
+import training.chessington.engine.Searcher;
+import training.chessington.engine.TranspositionTable;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveNotation;
+import training.chessington.model.PackedMove;
+import training.chessington.model.PlayerColour;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+// Headless entry point speaking the Universal Chess Interface over stdin and stdout. Searches run on a
+// separate thread so that "stop" and "isready" are answered while the engine is thinking.
+public class UciMain {
+
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+    private static final int MAX_HASH_MEGABYTES = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final PrintStream out;
+    private final MoveNotation notation = new MoveNotation();
+    private Searcher searcher = new Searcher(new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    private Game game = Fen.parse(Fen.STARTING_POSITION);
+    private Thread searchThread;
+    private CountDownLatch stopSignal = new CountDownLatch(0);
+
+    public UciMain(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        UciMain uci = new UciMain(System.out);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!uci.handle(line.trim())) {
+                break;
+            }
+        }
+        uci.stopSearch();
+    }
+
+    // Returns false once the engine should exit
+    public boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name Chessington");
+                send("id author Softwire");
+                send("option name Hash type spin default " + DEFAULT_HASH_MEGABYTES + " min 1 max " + MAX_HASH_MEGABYTES);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                searcher.clearHash();
+                game = Fen.parse(Fen.STARTING_POSITION);
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                try {
+                    go(tokens);
+                } catch (NumberFormatException e) {
+                    send("info string Invalid go command: " + line);
+                }
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        // setoption name <name> value <value>
+        String name = null;
+        String value = null;
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equals("name")) {
+                name = tokens[i + 1];
+            } else if (tokens[i].equals("value")) {
+                value = tokens[i + 1];
+            }
+        }
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                int megabytes = Math.max(1, Math.min(MAX_HASH_MEGABYTES, Integer.parseInt(value)));
+                Searcher resized = new Searcher(new TranspositionTable(megabytes));
+                resized.setThreads(searcher.getThreads());
+                resized.setOptions(searcher.getOptions());
+                searcher = resized;
+            } else if (name.equalsIgnoreCase("Threads")) {
+                searcher.setThreads(Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value))));
+            }
+        } catch (NumberFormatException e) {
+            send("info string Invalid value for " + name + ": " + value);
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        // position [startpos | fen <six fields>] [moves <move>...]
+        int i = 1;
+        Game position;
+        try {
+            if (i < tokens.length && tokens[i].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                    fen.append(fen.length() == 0 ? "" : " ").append(tokens[i]);
+                }
+                position = Fen.parse(fen.toString());
+            } else {
+                position = Fen.parse(Fen.STARTING_POSITION);
+                i++;
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = notation.parseUci(position, tokens[i]);
+                if (move == PackedMove.NONE) {
+                    send("info string Illegal move " + tokens[i]);
+                    break;
+                }
+                position.makeMove(move);
+            }
+        }
+        game = position;
+    }
+
+    private void go(String[] tokens) {
+        SearchLimits limits = SearchLimits.infinite();
+        boolean infinite = false;
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        int movesToGo = 0;
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            switch (tokens[i]) {
+                case "depth": limits.setDepth(Integer.parseInt(value)); i++; break;
+                case "nodes": limits.setNodes(Long.parseLong(value)); i++; break;
+                case "movetime": limits.setTimeMillis(Long.parseLong(value)); i++; break;
+                case "wtime": whiteTime = Long.parseLong(value); i++; break;
+                case "btime": blackTime = Long.parseLong(value); i++; break;
+                case "winc": whiteIncrement = Long.parseLong(value); i++; break;
+                case "binc": blackIncrement = Long.parseLong(value); i++; break;
+                case "movestogo": movesToGo = Integer.parseInt(value); i++; break;
+                case "infinite": infinite = true; break;
+                default: break;
+            }
+        }
+
+        boolean white = game.getGameInfo().getNextPlayer() == PlayerColour.WHITE;
+        long remaining = white ? whiteTime : blackTime;
+        if (remaining >= 0) {
+            limits.setClock(remaining, white ? whiteIncrement : blackIncrement, movesToGo);
+        }
+
+        Game position = game.createCopy();
+        Searcher activeSearcher = searcher;
+        CountDownLatch signal = new CountDownLatch(1);
+        stopSignal = signal;
+        boolean waitForStop = infinite;
+        long start = System.nanoTime();
+        activeSearcher.setListener(result -> {
+            // Every search starts with its stop flag clear, so a "stop" that came before the search thread got
+            // there is passed on here, once the first iteration is in
+            if (signal.getCount() == 0) {
+                activeSearcher.stop();
+            }
+            sendInfo(result, (System.nanoTime() - start) / 1_000_000, activeSearcher.hashfull());
+        });
+
+        searchThread = new Thread(() -> {
+            SearchResult result = activeSearcher.search(position, limits);
+            // With "go infinite" the best move may only be reported once the GUI sends "stop"
+            if (waitForStop) {
+                awaitQuietly(signal);
+            }
+            send("bestmove " + MoveNotation.toUci(result.getBestMove()));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    private void stopSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        // The signal goes first so that a search starting in between still sees it in its listener
+        stopSignal.countDown();
+        searcher.stop();
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    private void sendInfo(SearchResult result, long elapsedMillis, int hashfull) {
+        StringBuilder info = new StringBuilder("info depth ").append(result.getDepth());
+        if (result.isMateScore()) {
+            int score = result.getScore();
+            int moves = score > 0 ? (Searcher.MATE - score + 1) / 2 : -(Searcher.MATE + score) / 2;
+            info.append(" score mate ").append(moves);
+        } else {
+            info.append(" score cp ").append(result.getScore());
+        }
+        info.append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNodes() * 1000 / Math.max(1, elapsedMillis))
+                .append(" time ").append(elapsedMillis)
+                .append(" hashfull ").append(hashfull)
+                .append(" pv");
+        for (int move : result.getPrincipalVariation()) {
+            MoveNotation.appendUci(info.append(' '), move);
+        }
+        send(info.toString());
+    }
+
+    private synchronized void send(String message) {
+        out.println(message);
+        out.flush();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package training.chessington.archive;
+
+// Layout of a game archive. All numbers are big-endian.
+//
+//   header        magic, version, game count, string count, index offset, string index offset, string data offset
+//   game records  one after another, each starting on a byte boundary
+//   index         the offset of each game record, as a long
+//   string index  the offset of each interned string from the start of the string data, as a long
+//   string data   each interned string as a varint length and UTF-8 bytes
+//
+// A game record is a varint tag count, a name and a value per tag, the result as one byte, a varint
+// ply count and then the moves. A tag name or value is a varint that is either an interned string's id
+// shifted left by one, or the string's length shifted left by one with the low bit set, followed by
+// its UTF-8 bytes. Only strings that repeat are interned, so values unique to a game, such as its
+// Site, cost no more than their own bytes. Each move is its index in the list
+// MoveGenerator.generateLegalMoves gives for the position, written in just enough bits to index that
+// list, so a forced move takes no space at all. Archives therefore depend on the move generator's
+// ordering, which the version number has to follow.
+final class ArchiveFormat {
+
+    static final int MAGIC = 0x43474131;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 48;
+
+    // Records and strings are never larger than this, so that one always fits inside a mapped segment's overlap
+    static final int MAX_RECORD_SIZE = 1 << 16;
+
+    private ArchiveFormat() {
+    }
+
+    // Bits needed to tell apart the given number of legal moves
+    static int indexWidth(int moveCount) {
+        return moveCount <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(moveCount - 1);
+    }
+}
@@ -0,0 +1,74 @@
+package training.chessington.archive;
+
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.model.pieces.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One game decoded from a GameArchive. Like PgnGame it is meant to be reused, and it also carries
+// the position the moves are replayed on, so threads can read one archive with a game each.
+public final class ArchivedGame {
+
+    private final List<String> tagNames = new ArrayList<>();
+    private final List<String> tagValues = new ArrayList<>();
+    private final MoveList moves = new MoveList(512);
+    private Result result;
+    private long index;
+
+    final Game startingPosition = Game.newGame();
+    final Game replay = Game.newGame();
+    final MoveList legalMoves = new MoveList();
+
+    public long getIndex() {
+        return index;
+    }
+
+    public int getTagCount() {
+        return tagNames.size();
+    }
+
+    public String getTagName(int index) {
+        return tagNames.get(index);
+    }
+
+    public String getTagValue(int index) {
+        return tagValues.get(index);
+    }
+
+    // Value of the first tag with the given name, or null if the game has none
+    public String getTag(String name) {
+        int index = tagNames.indexOf(name);
+        return index < 0 ? null : tagValues.get(index);
+    }
+
+    public MoveList getMoves() {
+        return moves;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    // The position after the last move; only valid until the next game is read into this instance
+    public Game getFinalPosition() {
+        return replay;
+    }
+
+    void reset(long index) {
+        this.index = index;
+        tagNames.clear();
+        tagValues.clear();
+        moves.clear();
+    }
+
+    void addTag(String name, String value) {
+        tagNames.add(name);
+        tagValues.add(value);
+    }
+
+    void setResult(Result result) {
+        this.result = result;
+    }
+}
@@ -0,0 +1,156 @@
+package training.chessington.archive;
+
+import training.chessington.model.Fen;
+import training.chessington.model.pieces.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Random access to the games in an archive written by GameArchiveWriter. The file is memory-mapped,
+// so reading a game touches only its index entry, its record and the strings it uses. Several
+// threads may share one archive as long as each decodes into its own ArchivedGame.
+public class GameArchive implements Closeable {
+
+    private static final Result[] RESULTS = Result.values();
+
+    // A buffer maps at most 2 GB, so larger files are mapped in segments. Each segment also maps the
+    // first MAX_RECORD_SIZE bytes of the next one, so any record or string lies wholly inside the
+    // segment it starts in.
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long gameCount;
+    private final long stringCount;
+    private final long indexOffset;
+    private final long stringIndexOffset;
+    private final long stringDataOffset;
+
+    public GameArchive(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            segments = new MappedByteBuffer[(int) Math.max(1, (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE + ArchiveFormat.MAX_RECORD_SIZE, size - start));
+            }
+            if (size < ArchiveFormat.HEADER_SIZE || segments[0].getInt(0) != ArchiveFormat.MAGIC) {
+                throw new IOException("Not a game archive: " + path);
+            }
+            if (segments[0].getInt(4) != ArchiveFormat.VERSION) {
+                throw new IOException("Unsupported game archive version " + segments[0].getInt(4) + ": " + path);
+            }
+            gameCount = segments[0].getLong(8);
+            stringCount = segments[0].getLong(16);
+            indexOffset = segments[0].getLong(24);
+            stringIndexOffset = segments[0].getLong(32);
+            stringDataOffset = segments[0].getLong(40);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return gameCount;
+    }
+
+    // Decodes one game in time proportional to its length, without reading any other game
+    public void read(long index, ArchivedGame game) {
+        if (index < 0 || index >= gameCount) {
+            throw new IndexOutOfBoundsException("Game " + index + " of " + gameCount);
+        }
+        ByteBuffer record = view(getLong(indexOffset + 8 * index));
+
+        game.reset(index);
+        long tagCount = readVarint(record);
+        for (long i = 0; i < tagCount; i++) {
+            String name = readString(record);
+            game.addTag(name, readString(record));
+        }
+        game.setResult(RESULTS[record.get()]);
+        long plies = readVarint(record);
+
+        String fen = game.getTag("FEN");
+        if (fen == null) {
+            game.replay.copyFrom(game.startingPosition);
+        } else {
+            game.replay.copyFrom(Fen.parse(fen));
+        }
+
+        // Moves are taken off the top of a bit buffer that is refilled a byte at a time
+        int bits = 0;
+        int bitCount = 0;
+        for (long ply = 0; ply < plies; ply++) {
+            game.legalMoves.clear();
+            game.replay.generateLegalMoves(game.legalMoves);
+            int width = ArchiveFormat.indexWidth(game.legalMoves.size());
+            while (bitCount < width) {
+                bits = bits << 8 | (record.get() & 0xFF);
+                bitCount += 8;
+            }
+            bitCount -= width;
+            int move = game.legalMoves.get((bits >>> bitCount) & ((1 << width) - 1));
+            game.replay.makeMove(move);
+            game.getMoves().add(move);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // An interned string's id, or a string written out in the record itself
+    private String readString(ByteBuffer record) {
+        long header = readVarint(record);
+        if ((header & 1) != 0) {
+            return readBytes(record, (int) (header >>> 1));
+        }
+        long id = header >>> 1;
+        if (id >= stringCount) {
+            throw new IllegalStateException("Corrupt game archive: string " + id + " of " + stringCount);
+        }
+        ByteBuffer string = view(stringDataOffset + getLong(stringIndexOffset + 8 * id));
+        return readBytes(string, (int) readVarint(string));
+    }
+
+    private static String readBytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // A buffer of its own positioned at the given file offset, so that concurrent reads do not share a position
+    private ByteBuffer view(long position) {
+        ByteBuffer view = segment(position).duplicate();
+        view.position((int) (position % SEGMENT_SIZE));
+        return view;
+    }
+
+    private long getLong(long position) {
+        return segment(position).getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)];
+    }
+}
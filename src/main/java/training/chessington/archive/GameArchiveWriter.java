@@ -0,0 +1,340 @@
+package training.chessington.archive;
+
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.pgn.PgnGame;
+import training.chessington.pgn.PgnReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Writes games into the binary format read by GameArchive. Records are streamed to the file as games
+// are added, and the index and string table are streamed to temporary files beside it and copied in
+// on close, so memory use does not grow with the number of games. Only strings that repeat are
+// interned, and only up to a fixed number of them; the rest are written into the records that use them.
+public class GameArchiveWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // A string is interned when it comes round again while still among the most recently seen ones
+    private static final int RECENT_STRINGS = 1 << 12;
+    private static final int MAX_INTERNED_STRINGS = 1 << 16;
+    private static final int MAX_INTERNED_LENGTH = 128;
+
+    private final Output archive;
+    private final Output gameIndex;
+    private final Output stringIndex;
+    private final Output stringData;
+
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final Set<String> recentStrings = new LinkedHashSet<>();
+    private int gameCount;
+
+    // The record being built, and the replay used to turn moves into move list indices
+    private byte[] record = new byte[256];
+    private int recordLength;
+    private long bits;
+    private int bitCount;
+    private final Game startingPosition = Game.newGame();
+    private final Game replay = Game.newGame();
+    private final MoveList legalMoves = new MoveList();
+
+    public GameArchiveWriter(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        archive = new Output(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        Output[] spills = new Output[3];
+        try {
+            for (int i = 0; i < spills.length; i++) {
+                spills[i] = new Output(FileChannel.open(Files.createTempFile(directory, ".archive-", ".tmp"),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE));
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(archive, spills[0], spills[1], spills[2]);
+            throw e;
+        }
+        gameIndex = spills[0];
+        stringIndex = spills[1];
+        stringData = spills[2];
+        archive.position(ArchiveFormat.HEADER_SIZE);
+    }
+
+    // Adds a game read from PGN; only valid games can be archived
+    public void add(PgnGame game) throws IOException {
+        if (!game.isValid()) {
+            throw new IllegalArgumentException("Cannot archive an invalid game: " + game.getError());
+        }
+        // A previous game that was too long to archive may have stopped partway through its moves
+        recordLength = 0;
+        bits = 0;
+        bitCount = 0;
+
+        String fen = game.getTag("FEN");
+        if (fen == null) {
+            replay.copyFrom(startingPosition);
+        } else {
+            replay.copyFrom(Fen.parse(fen));
+        }
+
+        writeVarint(game.getTagCount());
+        for (int i = 0; i < game.getTagCount(); i++) {
+            writeString(game.getTagName(i));
+            writeString(game.getTagValue(i));
+        }
+        writeByte(game.getResult().ordinal());
+
+        MoveList moves = game.getMoves();
+        writeVarint(moves.size());
+        for (int ply = 0; ply < moves.size(); ply++) {
+            int move = moves.get(ply);
+            legalMoves.clear();
+            replay.generateLegalMoves(legalMoves);
+            int index = 0;
+            while (legalMoves.get(index) != move) {
+                index++;
+            }
+            writeBits(index, ArchiveFormat.indexWidth(legalMoves.size()));
+            replay.makeMove(move);
+        }
+        flushBits();
+
+        gameIndex.putLong(archive.size());
+        archive.put(record, 0, recordLength);
+        gameCount++;
+    }
+
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    int getStringCount() {
+        return stringIds.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = archive.size();
+            archive.append(gameIndex);
+            long stringIndexOffset = archive.size();
+            archive.append(stringIndex);
+            long stringDataOffset = archive.size();
+            archive.append(stringData);
+            archive.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(ArchiveFormat.HEADER_SIZE);
+            header.putInt(ArchiveFormat.MAGIC).putInt(ArchiveFormat.VERSION)
+                    .putLong(gameCount).putLong(stringIds.size())
+                    .putLong(indexOffset).putLong(stringIndexOffset).putLong(stringDataOffset);
+            header.flip();
+            while (header.hasRemaining()) {
+                archive.channel.write(header, header.position());
+            }
+        } finally {
+            closeAll(archive, gameIndex, stringIndex, stringData);
+        }
+    }
+
+    private static void closeAll(Output... outputs) throws IOException {
+        IOException failure = null;
+        for (Output output : outputs) {
+            try {
+                if (output != null) {
+                    output.channel.close();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Either the id of an interned string or the string itself, as described in ArchiveFormat
+    private void writeString(String value) throws IOException {
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            writeVarint((long) id << 1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_INTERNED_LENGTH && stringIds.size() < MAX_INTERNED_STRINGS) {
+            if (recentStrings.remove(value)) {
+                id = stringIds.size();
+                stringIds.put(value, id);
+                stringIndex.putLong(stringData.size());
+                stringData.putVarint(bytes.length);
+                stringData.put(bytes, 0, bytes.length);
+                writeVarint((long) id << 1);
+                return;
+            }
+            recentStrings.add(value);
+            if (recentStrings.size() > RECENT_STRINGS) {
+                Iterator<String> oldest = recentStrings.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+
+        writeVarint((long) bytes.length << 1 | 1);
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    // Most significant bit first, so that the reader can take bits off the top of each byte
+    private void writeBits(int value, int width) {
+        bits = bits << width | value;
+        bitCount += width;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            writeByte((int) (bits >>> bitCount));
+        }
+    }
+
+    private void flushBits() {
+        if (bitCount > 0) {
+            writeByte((int) (bits << (8 - bitCount)));
+        }
+        bits = 0;
+        bitCount = 0;
+    }
+
+    private void writeByte(int value) {
+        if (recordLength == record.length) {
+            if (recordLength == ArchiveFormat.MAX_RECORD_SIZE) {
+                throw new IllegalArgumentException("Game too long to archive");
+            }
+            record = Arrays.copyOf(record, Math.min(recordLength * 2, ArchiveFormat.MAX_RECORD_SIZE));
+        }
+        record[recordLength++] = (byte) value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GameArchiveWriter <games.pgn> <games.archive>");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        long skipped = 0;
+        int games;
+        try (PgnReader reader = new PgnReader(Paths.get(args[0]));
+             GameArchiveWriter writer = new GameArchiveWriter(Paths.get(args[1]))) {
+            PgnGame game = new PgnGame();
+            while (reader.next(game)) {
+                if (game.isValid()) {
+                    writer.add(game);
+                } else {
+                    skipped++;
+                }
+            }
+            games = writer.getGameCount();
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Games: " + games);
+        System.out.println("Skipped invalid: " + skipped);
+        System.out.println("PGN bytes: " + Files.size(Paths.get(args[0])));
+        System.out.println("Archive bytes: " + Files.size(Paths.get(args[1])));
+        System.out.println("Time: " + elapsedNanos / 1_000_000 + " ms");
+    }
+
+    // A file written through a buffer, keeping count of the bytes written to it
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long size;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void position(long position) throws IOException {
+            flush();
+            channel.position(position);
+            size = position;
+        }
+
+        void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+            buffer.putLong(value);
+            size += 8;
+        }
+
+        void putVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                putByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            putByte((int) value);
+        }
+
+        void putByte(int value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) value);
+            size++;
+        }
+
+        void put(byte[] data, int offset, int length) throws IOException {
+            for (int end = offset + length; offset < end; ) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(buffer.remaining(), end - offset);
+                buffer.put(data, offset, chunk);
+                offset += chunk;
+            }
+            size += length;
+        }
+
+        // Copies everything written to the other file onto the end of this one
+        void append(Output other) throws IOException {
+            flush();
+            other.flush();
+            for (long copied = 0; copied < other.size; ) {
+                copied += other.channel.transferTo(copied, other.size - copied, channel);
+            }
+            size += other.size;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
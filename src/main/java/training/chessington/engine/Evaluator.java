@@ -0,0 +1,53 @@
+package training.chessington.engine;
+
+import training.chessington.model.Board;
+import training.chessington.model.Game;
+import training.chessington.model.PieceSquareTables;
+import training.chessington.model.PlayerColour;
+import training.chessington.model.pieces.Piece;
+
+public class Evaluator {
+
+    // Indexed by PieceType ordinal; used to weigh exchanges, while evaluate uses PieceSquareTables
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+    private static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    private final PawnTable pawnTable = new PawnTable(PAWN_TABLE_ENTRIES);
+
+    public static int pieceValue(Piece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    // Centipawns from the point of view of the side to move, blending the board's running midgame and
+    // endgame sums by how much material is left, so it costs the same however many pieces are on the board
+    public int evaluate(Game game) {
+        Board board = game.getBoard();
+        long pawns = pawnTable.probe(board);
+        int midgame = board.getMidgameScore() + PawnStructure.midgame(pawns)
+                + kingShield(board, pawns, PlayerColour.WHITE) - kingShield(board, pawns, PlayerColour.BLACK);
+        int endgame = board.getEndgameScore() + PawnStructure.endgame(pawns);
+
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (midgame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return game.getGameInfo().getNextPlayer() == PlayerColour.WHITE ? score : -score;
+    }
+
+    // Only a king tucked away on its back two rows on either wing is sheltered by the pawns in front of it
+    private static int kingShield(Board board, long pawns, PlayerColour colour) {
+        int king = board.findKingSquare(colour);
+        if (king < 0) {
+            return 0;
+        }
+        int row = king / Game.SIZE;
+        int col = king % Game.SIZE;
+        boolean onBackRows = colour == PlayerColour.WHITE ? row >= Game.SIZE - 2 : row <= 1;
+        if (!onBackRows || (col > 2 && col < Game.SIZE - 3)) {
+            return 0;
+        }
+        return PawnStructure.shield(pawns, colour, col <= 2 ? 0 : 1);
+    }
+
+    double getPawnTableHitRate() {
+        return pawnTable.getHitRate();
+    }
+}
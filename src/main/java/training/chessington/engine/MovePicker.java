@@ -0,0 +1,213 @@
+package training.chessington.engine;
+
+import training.chessington.model.Board;
+import training.chessington.model.Game;
+import training.chessington.model.MoveGenerator;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
+import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Pieces;
+
+// Hands out the moves of one node in stages, most promising first, so that a node which cuts off
+// early never pays for ordering the moves it did not need
+final class MovePicker {
+
+    private static final int STAGE_TABLE_MOVE = 0;
+    private static final int STAGE_GOOD_CAPTURES = 1;
+    private static final int STAGE_KILLER_1 = 2;
+    private static final int STAGE_KILLER_2 = 3;
+    private static final int STAGE_COUNTER_MOVE = 4;
+    private static final int STAGE_SCORE_QUIETS = 5;
+    private static final int STAGE_QUIETS = 6;
+    private static final int STAGE_BAD_CAPTURES = 7;
+    private static final int STAGE_DONE = 8;
+
+    private final MoveList moves = new MoveList();
+    private final int[] scores = new int[256];
+    private final int[] badCaptures = new int[256];
+    private final int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGES];
+
+    private Board board;
+    private int stage;
+    private boolean capturesOnly;
+    private int tableMove;
+    private int killer1;
+    private int killer2;
+    private int counterMove;
+    private int[] history;
+
+    // Captures and promotions are kept in [0, captureEnd) and quiet moves after them; next is the first unpicked move
+    private int captureEnd;
+    private int next;
+    private int badCaptureCount;
+    private int badCaptureNext;
+
+    void init(Game game, int tableMove, int killer1, int killer2, int counterMove, int[] history) {
+        moves.clear();
+        game.generateLegalMoves(moves);
+        start(game, false, STAGE_TABLE_MOVE);
+        this.tableMove = tableMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.counterMove = counterMove;
+        this.history = history;
+    }
+
+    // Only captures and promotions, and only those that do not lose material on the exchange
+    void initCaptures(Game game) {
+        moves.clear();
+        MoveGenerator.generateLegalCaptures(game, moves);
+        start(game, true, STAGE_GOOD_CAPTURES);
+        tableMove = PackedMove.NONE;
+    }
+
+    int moveCount() {
+        return moves.size();
+    }
+
+    int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_TABLE_MOVE:
+                    stage++;
+                    if (tableMove != PackedMove.NONE && moves.contains(tableMove)) {
+                        return tableMove;
+                    }
+                    break;
+                case STAGE_GOOD_CAPTURES:
+                    if (next < captureEnd) {
+                        int move = pickBest(next++, captureEnd);
+                        if (move == tableMove) {
+                            break;
+                        }
+                        if (StaticExchange.evaluate(board, move, exchangeGains) < 0) {
+                            badCaptures[badCaptureCount++] = move;
+                            break;
+                        }
+                        return move;
+                    }
+                    stage = capturesOnly ? STAGE_DONE : STAGE_KILLER_1;
+                    break;
+                case STAGE_KILLER_1:
+                    stage++;
+                    if (takeQuiet(killer1)) {
+                        return killer1;
+                    }
+                    break;
+                case STAGE_KILLER_2:
+                    stage++;
+                    if (takeQuiet(killer2)) {
+                        return killer2;
+                    }
+                    break;
+                case STAGE_COUNTER_MOVE:
+                    stage++;
+                    if (counterMove != killer1 && counterMove != killer2 && takeQuiet(counterMove)) {
+                        return counterMove;
+                    }
+                    break;
+                case STAGE_SCORE_QUIETS:
+                    for (int i = next; i < moves.size(); i++) {
+                        scores[i] = history[butterflyIndex(moves.get(i))];
+                    }
+                    stage++;
+                    break;
+                case STAGE_QUIETS:
+                    if (next < moves.size()) {
+                        int move = pickBest(next++, moves.size());
+                        if (move != tableMove) {
+                            return move;
+                        }
+                        break;
+                    }
+                    stage++;
+                    break;
+                case STAGE_BAD_CAPTURES:
+                    if (badCaptureNext < badCaptureCount) {
+                        return badCaptures[badCaptureNext++];
+                    }
+                    stage++;
+                    break;
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    static boolean isQuiet(int move) {
+        return !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+    }
+
+    // Index into the from-square by to-square ("butterfly") tables
+    static int butterflyIndex(int move) {
+        return PackedMove.from(move) << 6 | PackedMove.to(move);
+    }
+
+    // Most valuable victim first, least valuable attacker among equal victims
+    static int mvvLva(Board board, int move) {
+        int score = 0;
+        if (PackedMove.isCapture(move)) {
+            int victim = board.pieceAt(PackedMove.to(move));
+            int victimValue = victim == Pieces.NONE ? Evaluator.pieceValue(Piece.PieceType.PAWN) : Evaluator.pieceValue(Pieces.fromCode(victim).getType());
+            score = victimValue * Pieces.TYPE_COUNT + Pieces.TYPE_COUNT - Pieces.typeOf(board.pieceAt(PackedMove.from(move)));
+        }
+        Piece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            score += Evaluator.pieceValue(promotion) * Pieces.TYPE_COUNT;
+        }
+        return score;
+    }
+
+    private void start(Game game, boolean capturesOnly, int firstStage) {
+        this.board = game.getBoard();
+        this.capturesOnly = capturesOnly;
+        stage = firstStage;
+        next = 0;
+        badCaptureCount = 0;
+        badCaptureNext = 0;
+
+        captureEnd = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!isQuiet(move)) {
+                moves.set(i, moves.get(captureEnd));
+                moves.set(captureEnd++, move);
+            }
+        }
+        for (int i = 0; i < captureEnd; i++) {
+            scores[i] = mvvLva(board, moves.get(i));
+        }
+    }
+
+    // Selection sort one step at a time: only the moves actually searched are ever put in order
+    private int pickBest(int from, int to) {
+        int best = from;
+        for (int i = from + 1; i < to; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        moves.set(best, moves.get(from));
+        moves.set(from, move);
+        int score = scores[best];
+        scores[best] = scores[from];
+        scores[from] = score;
+        return move;
+    }
+
+    // Pulls a known-good quiet move out of the remaining quiet moves, if it is legal here
+    private boolean takeQuiet(int move) {
+        if (move == PackedMove.NONE || move == tableMove) {
+            return false;
+        }
+        for (int i = next; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                moves.set(i, moves.get(next));
+                moves.set(next++, move);
+                return true;
+            }
+        }
+        return false;
+    }
+}
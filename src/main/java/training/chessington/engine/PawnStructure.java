@@ -0,0 +1,130 @@
+package training.chessington.engine;
+
+import training.chessington.model.Attacks;
+import training.chessington.model.Board;
+import training.chessington.model.Game;
+import training.chessington.model.PlayerColour;
+import training.chessington.model.pieces.Piece;
+
+// Evaluation terms that depend on the pawns alone, packed into one long so that PawnTable can cache them:
+// midgame and endgame scores (white minus black, offset by 32768) in the top two 16-bit fields, then the
+// shield each side would have with its king castled queenside and kingside, one byte each.
+final class PawnStructure {
+
+    private static final int[] DOUBLED = {-10, -20};
+    private static final int[] ISOLATED = {-10, -15};
+    private static final int[] BACKWARD = {-8, -10};
+
+    // Indexed by rank counted from the pawn's own side, 0 being its back rank
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 45, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 120, 0};
+
+    private static final int SHIELD_NEAR = 10;
+    private static final int SHIELD_FAR = 5;
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long[] ADJACENT_FILES = new long[Game.SIZE];
+
+    // Per colour and square: the file ahead, the files ahead that an enemy pawn could stop it from,
+    // and the neighbouring squares level with or behind it that a friendly pawn could support it from
+    private static final long[][] FORWARD_FILE = new long[2][64];
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int col = 0; col < Game.SIZE; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILE_A << (col - 1) : 0) | (col < Game.SIZE - 1 ? FILE_A << (col + 1) : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int row = square / Game.SIZE;
+            int col = square % Game.SIZE;
+            for (int other = 0; other < 64; other++) {
+                int otherRow = other / Game.SIZE;
+                long bit = 1L << other;
+                boolean sameFile = other % Game.SIZE == col;
+                boolean adjacentFile = (ADJACENT_FILES[col] & bit) != 0;
+                // White pawns move towards row 0, black pawns towards row 7
+                for (PlayerColour colour : PlayerColour.values()) {
+                    int c = colour.ordinal();
+                    boolean ahead = colour == PlayerColour.WHITE ? otherRow < row : otherRow > row;
+                    if (ahead && sameFile) {
+                        FORWARD_FILE[c][square] |= bit;
+                    }
+                    if (ahead && (sameFile || adjacentFile)) {
+                        PASSED_SPAN[c][square] |= bit;
+                    }
+                    if (!ahead && adjacentFile) {
+                        SUPPORT_SPAN[c][square] |= bit;
+                    }
+                }
+            }
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    static long evaluate(Board board) {
+        int midgame = 0;
+        int endgame = 0;
+        int shields = 0;
+        for (PlayerColour colour : PlayerColour.values()) {
+            int sign = colour == PlayerColour.WHITE ? 1 : -1;
+            int c = colour.ordinal();
+            long own = board.getPieces(colour, Piece.PieceType.PAWN);
+            long enemy = board.getPieces(colour.opponent(), Piece.PieceType.PAWN);
+            int forward = colour == PlayerColour.WHITE ? -Game.SIZE : Game.SIZE;
+
+            for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                int col = square % Game.SIZE;
+                int relativeRank = colour == PlayerColour.WHITE ? Game.SIZE - 1 - square / Game.SIZE : square / Game.SIZE;
+
+                if ((own & FORWARD_FILE[c][square]) != 0) {
+                    midgame += sign * DOUBLED[0];
+                    endgame += sign * DOUBLED[1];
+                }
+                if ((own & ADJACENT_FILES[col]) == 0) {
+                    midgame += sign * ISOLATED[0];
+                    endgame += sign * ISOLATED[1];
+                } else if ((own & SUPPORT_SPAN[c][square]) == 0 && isStopSquareGuarded(colour, square + forward, enemy)) {
+                    midgame += sign * BACKWARD[0];
+                    endgame += sign * BACKWARD[1];
+                }
+                if ((enemy & PASSED_SPAN[c][square]) == 0 && (own & FORWARD_FILE[c][square]) == 0) {
+                    midgame += sign * PASSED_MIDGAME[relativeRank];
+                    endgame += sign * PASSED_ENDGAME[relativeRank];
+                }
+            }
+
+            int queenside = wingShield(own, colour, 0);
+            int kingside = wingShield(own, colour, Game.SIZE - 3);
+            shields |= (queenside | kingside << 8) << (16 * (1 - c));
+        }
+        return ((long) (midgame + 32768) << 48) | ((long) (endgame + 32768) << 32) | (shields & 0xFFFFFFFFL);
+    }
+
+    static int midgame(long data) {
+        return (int) (data >>> 48) - 32768;
+    }
+
+    static int endgame(long data) {
+        return (int) ((data >>> 32) & 0xFFFF) - 32768;
+    }
+
+    // Shield for a king of the given colour castled on the given wing (0 queenside, 1 kingside)
+    static int shield(long data, PlayerColour colour, int wing) {
+        return (int) (data >>> (16 * (1 - colour.ordinal()) + 8 * wing)) & 0xFF;
+    }
+
+    private static boolean isStopSquareGuarded(PlayerColour colour, int stopSquare, long enemyPawns) {
+        return stopSquare >= 0 && stopSquare < 64 && (Attacks.pawnAttacks(colour, stopSquare) & enemyPawns) != 0;
+    }
+
+    private static int wingShield(long pawns, PlayerColour colour, int firstCol) {
+        long files = (FILE_A << firstCol) | (FILE_A << (firstCol + 1)) | (FILE_A << (firstCol + 2));
+        long nearRow = colour == PlayerColour.WHITE ? 0xFFL << 48 : 0xFFL << 8;
+        long farRow = colour == PlayerColour.WHITE ? 0xFFL << 40 : 0xFFL << 16;
+        return SHIELD_NEAR * Long.bitCount(pawns & files & nearRow) + SHIELD_FAR * Long.bitCount(pawns & files & farRow);
+    }
+}
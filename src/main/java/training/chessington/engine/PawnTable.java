@@ -0,0 +1,39 @@
+package training.chessington.engine;
+
+import training.chessington.model.Board;
+
+// Cache of PawnStructure results keyed on the board's pawn hash. Each search thread owns its own
+// evaluator and so its own table, which therefore needs no synchronisation.
+class PawnTable {
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(1, entries));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    long probe(Board board) {
+        long pawnHash = board.getPawnHash();
+        int index = (int) pawnHash & mask;
+        probes++;
+        if (keys[index] == pawnHash && data[index] != 0) {
+            hits++;
+            return data[index];
+        }
+        long structure = PawnStructure.evaluate(board);
+        keys[index] = pawnHash;
+        data[index] = structure;
+        return structure;
+    }
+
+    double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
@@ -0,0 +1,82 @@
+package training.chessington.engine;
+
+public class SearchLimits {
+
+    private int depth = Searcher.MAX_PLY - 1;
+    private long nodes = Long.MAX_VALUE;
+    private long timeMillis = Long.MAX_VALUE;
+    private long remainingMillis = -1;
+    private long incrementMillis;
+    private int movesToGo;
+
+    public static SearchLimits infinite() {
+        return new SearchLimits();
+    }
+
+    public static SearchLimits forDepth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        return limits;
+    }
+
+    public static SearchLimits forNodes(long nodes) {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(nodes);
+        return limits;
+    }
+
+    public static SearchLimits forTime(long timeMillis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setTimeMillis(timeMillis);
+        return limits;
+    }
+
+    // Time left on the engine's clock; the time manager then decides how much of it to use
+    public static SearchLimits forClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        SearchLimits limits = new SearchLimits();
+        limits.setClock(remainingMillis, incrementMillis, movesToGo);
+        return limits;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = Math.min(depth, Searcher.MAX_PLY - 1);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public void setTimeMillis(long timeMillis) {
+        this.timeMillis = timeMillis;
+    }
+
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public void setClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        this.remainingMillis = remainingMillis;
+        this.incrementMillis = incrementMillis;
+        this.movesToGo = movesToGo;
+    }
+}
@@ -0,0 +1,7 @@
+package training.chessington.engine;
+
+public interface SearchListener {
+
+    // Called on the main search thread each time an iteration of the given depth completes
+    void onIterationComplete(SearchResult result);
+}
@@ -0,0 +1,55 @@
+package training.chessington.engine;
+
+// Switches for the selective search features, so that each can be measured against a search without it
+public class SearchOptions {
+
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean reverseFutilityPruning = true;
+    private boolean aspirationWindows = true;
+
+    public static SearchOptions allEnabled() {
+        return new SearchOptions();
+    }
+
+    public static SearchOptions allDisabled() {
+        SearchOptions options = new SearchOptions();
+        options.nullMovePruning = false;
+        options.lateMoveReductions = false;
+        options.reverseFutilityPruning = false;
+        options.aspirationWindows = false;
+        return options;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isReverseFutilityPruning() {
+        return reverseFutilityPruning;
+    }
+
+    public void setReverseFutilityPruning(boolean reverseFutilityPruning) {
+        this.reverseFutilityPruning = reverseFutilityPruning;
+    }
+
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    public void setAspirationWindows(boolean aspirationWindows) {
+        this.aspirationWindows = aspirationWindows;
+    }
+}
@@ -0,0 +1,51 @@
+package training.chessington.engine;
+
+import training.chessington.model.Move;
+import training.chessington.model.PackedMove;
+
+public class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final int[] principalVariation;
+    private final long nodes;
+
+    public SearchResult(int bestMove, int score, int depth, int[] principalVariation, long nodes) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+    }
+
+    // Packed move (see PackedMove), or PackedMove.NONE if the side to move has no legal moves
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public Move getBestMoveAsMove() {
+        return bestMove == PackedMove.NONE ? null : PackedMove.toMove(bestMove);
+    }
+
+    // Centipawns from the point of view of the side to move
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isMateScore() {
+        return Math.abs(score) > Searcher.MATE - Searcher.MAX_PLY;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,438 @@
+package training.chessington.engine;
+
+import training.chessington.model.Board;
+import training.chessington.model.Game;
+import training.chessington.model.MoveGenerator;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
+import training.chessington.model.PlayerColour;
+import training.chessington.model.pieces.Piece;
+
+import java.util.Arrays;
+
+class SearchWorker {
+
+    // Reading the clock costs more than searching a node, so limits are polled every 2048 nodes
+    private static final int CHECK_INTERVAL_MASK = 2047;
+
+    // Helpers skip depths in repeating blocks, each with its own phase, so that the threads spread
+    // over neighbouring depths instead of all searching the same tree in lockstep
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    // History scores saturate towards this bound, so that recent cutoffs keep outweighing old ones
+    private static final int MAX_HISTORY = 16384;
+    private static final int MAX_HISTORY_BONUS = 1024;
+
+    private static final int ASPIRATION_MIN_DEPTH = 5;
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 6;
+    private static final int REVERSE_FUTILITY_MARGIN = 120;
+    private static final int REDUCTION_MIN_DEPTH = 3;
+    private static final int REDUCTION_MIN_MOVES = 3;
+
+    // Late move reductions grow with the logarithm of both the remaining depth and the move number
+    private static final int[][] REDUCTIONS = new int[Searcher.MAX_PLY][256];
+
+    static {
+        for (int depth = 1; depth < Searcher.MAX_PLY; depth++) {
+            for (int moveNumber = 1; moveNumber < 256; moveNumber++) {
+                REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    private final Searcher searcher;
+    private final int index;
+    private final Evaluator evaluator = new Evaluator();
+    private final MovePicker[] pickers = new MovePicker[Searcher.MAX_PLY];
+
+    // Ordering tables: two killer moves per ply, history per side by from and to square, and
+    // the reply that last refuted each previous move (by its from and to square)
+    private final int[][] killers = new int[Searcher.MAX_PLY][2];
+    private final int[][] history = new int[PlayerColour.values().length][64 * 64];
+    private final int[] counterMoves = new int[64 * 64];
+    private final int[] playedMoves = new int[Searcher.MAX_PLY];
+    private final int[][] quietsTried = new int[Searcher.MAX_PLY][256];
+
+    // Triangular principal variation table: row p holds the best line found from ply p onwards
+    private final int[][] pvTable = new int[Searcher.MAX_PLY][Searcher.MAX_PLY];
+    private final int[] pvLength = new int[Searcher.MAX_PLY];
+
+    private TranspositionTable table;
+    private SearchOptions options;
+    private Game game;
+    private long nodes;
+    private volatile long publishedNodes;
+    private long otherNodes;
+    private long nodeLimit;
+    private boolean aborted;
+    private int rootBestMove;
+
+    SearchWorker(Searcher searcher, int index) {
+        this.searcher = searcher;
+        this.index = index;
+        for (int ply = 0; ply < Searcher.MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    SearchResult search(Game position, SearchLimits limits) {
+        game = position;
+        table = searcher.getTable();
+        options = searcher.getOptions();
+        nodes = 0;
+        publishedNodes = 0;
+        otherNodes = 0;
+        nodeLimit = limits.getNodes();
+        aborted = false;
+        clearOrderingTables();
+
+        MoveList rootMoves = new MoveList();
+        game.generateLegalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            return new SearchResult(PackedMove.NONE, MoveGenerator.isInCheck(game) ? -Searcher.MATE : 0, 0, new int[0], 0);
+        }
+
+        // Until the first iteration completes, any legal move is better than none
+        rootBestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        int[] principalVariation = {rootBestMove};
+
+        for (int depth = 1; depth <= limits.getDepth(); depth++) {
+            if (isSkippedDepth(depth)) {
+                continue;
+            }
+            int score = aspirationSearch(depth, bestScore);
+            if (aborted) {
+                break;
+            }
+            rootBestMove = pvTable[0][0];
+            bestScore = score;
+            completedDepth = depth;
+            principalVariation = Arrays.copyOf(pvTable[0], pvLength[0]);
+            if (index == 0) {
+                searcher.reportIteration(new SearchResult(rootBestMove, bestScore, completedDepth, principalVariation, nodes));
+                if (searcher.getTimeManager().onIterationComplete(rootBestMove, bestScore)) {
+                    break;
+                }
+            }
+
+            // A deeper search cannot find a shorter mate than one already inside the horizon
+            if (Math.abs(score) >= Searcher.MATE - depth) {
+                break;
+            }
+        }
+
+        publishedNodes = nodes;
+        return new SearchResult(rootBestMove, bestScore, completedDepth, principalVariation, nodes);
+    }
+
+    long getPublishedNodes() {
+        return publishedNodes;
+    }
+
+    // Searches a narrow window around the previous iteration's score first, widening it on the side
+    // that failed until the score falls inside
+    private int aspirationSearch(int depth, int previousScore) {
+        if (!options.isAspirationWindows() || depth < ASPIRATION_MIN_DEPTH) {
+            return negamax(depth, -Searcher.INFINITY, Searcher.INFINITY, 0);
+        }
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previousScore - delta, -Searcher.INFINITY);
+        int beta = Math.min(previousScore + delta, Searcher.INFINITY);
+        while (true) {
+            int score = negamax(depth, alpha, beta, 0);
+            if (aborted) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -Searcher.INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, Searcher.INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private void clearOrderingTables() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, PackedMove.NONE);
+        }
+        // History carries over between searches of the same game, but with less weight than fresh results
+        for (int[] sideHistory : history) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    private boolean isSkippedDepth(int depth) {
+        if (index == 0) {
+            return false;
+        }
+        int pattern = (index - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[pattern]) / SKIP_SIZE[pattern]) % 2 != 0;
+    }
+
+    private boolean shouldAbort() {
+        if (aborted) {
+            return true;
+        }
+        if ((++nodes & CHECK_INTERVAL_MASK) == 0) {
+            publishedNodes = nodes;
+            if (index == 0) {
+                otherNodes = searcher.helperNodes();
+                if (searcher.getTimeManager().isHardLimitReached()) {
+                    searcher.stop();
+                }
+            }
+            if (searcher.isStopRequested()) {
+                aborted = true;
+            }
+        }
+        // The main thread enforces the node budget for all threads together
+        if (index == 0 && nodes + otherNodes >= nodeLimit) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (shouldAbort()) {
+            return 0;
+        }
+
+        if (ply > 0 && game.isRepetition()) {
+            return 0;
+        }
+        if (depth == 0 || ply == Searcher.MAX_PLY - 1) {
+            return quiescence(alpha, beta, ply);
+        }
+
+        long hash = game.positionHash();
+        long entry = table.probe(hash);
+        int tableMove = TranspositionTable.move(entry);
+        if (entry != TranspositionTable.NOT_FOUND && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        boolean inCheck = MoveGenerator.isInCheck(game);
+        int previousMove = ply > 0 ? playedMoves[ply - 1] : PackedMove.NONE;
+        if (ply > 0 && !pvNode && !inCheck) {
+            int staticEval = evaluator.evaluate(game);
+
+            // Reverse futility: so far above beta that no quiet move at this depth will bring it back
+            if (options.isReverseFutilityPruning() && depth <= REVERSE_FUTILITY_MAX_DEPTH && !isMateScore(beta)
+                    && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                return staticEval;
+            }
+
+            // Null move: if passing still fails high after a reduced search, a real move would too.
+            // Not after another null move, and not with only pawns left, where passing may be the best move.
+            if (options.isNullMovePruning() && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                    && previousMove != PackedMove.NONE && hasPiecesOtherThanPawns()) {
+                int reduction = 2 + depth / 4;
+                playedMoves[ply] = PackedMove.NONE;
+                game.makeNullMove();
+                int score = -negamax(Math.max(0, depth - 1 - reduction), -beta, -beta + 1, ply + 1);
+                game.unmakeMove();
+                if (aborted) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return isMateScore(score) ? beta : score;
+                }
+            }
+        }
+
+        int side = game.getGameInfo().getNextPlayer().ordinal();
+        int counterMove = previousMove == PackedMove.NONE ? PackedMove.NONE : counterMoves[MovePicker.butterflyIndex(previousMove)];
+        MovePicker picker = pickers[ply];
+        picker.init(game, ply == 0 ? rootBestMove : tableMove, killers[ply][0], killers[ply][1], counterMove, history[side]);
+        if (picker.moveCount() == 0) {
+            return inCheck ? -Searcher.MATE + ply : 0;
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -Searcher.INFINITY;
+        int bestMove = PackedMove.NONE;
+        int quietCount = 0;
+        int moveNumber = 0;
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            moveNumber++;
+            playedMoves[ply] = move;
+            game.makeMove(move);
+
+            // Principal variation search: the first move gets the full window, the rest a null window
+            // (reduced if late and quiet), re-searched only when they unexpectedly beat alpha
+            int score;
+            if (moveNumber == 1) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                int reduction = 0;
+                if (options.isLateMoveReductions() && depth >= REDUCTION_MIN_DEPTH && moveNumber > REDUCTION_MIN_MOVES
+                        && MovePicker.isQuiet(move) && !inCheck && !MoveGenerator.isInCheck(game)) {
+                    reduction = REDUCTIONS[Math.min(depth, Searcher.MAX_PLY - 1)][Math.min(moveNumber, 255)];
+                    if (pvNode || move == killers[ply][0] || move == killers[ply][1]) {
+                        reduction--;
+                    }
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+                score = -negamax(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        if (MovePicker.isQuiet(move)) {
+                            rewardQuietMove(ply, depth, side, move, previousMove, quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (MovePicker.isQuiet(move)) {
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        table.store(hash, depth, bound, scoreToTable(bestScore, ply), bestMove);
+        return bestScore;
+    }
+
+    // Searches captures and promotions until the position is quiet, so that the leaf score does not
+    // hinge on an exchange cut off half way. In check every evasion is searched instead.
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (shouldAbort()) {
+            return 0;
+        }
+        if (ply == Searcher.MAX_PLY - 1) {
+            return evaluator.evaluate(game);
+        }
+
+        MovePicker picker = pickers[ply];
+        boolean inCheck = MoveGenerator.isInCheck(game);
+        int bestScore;
+        if (inCheck) {
+            int side = game.getGameInfo().getNextPlayer().ordinal();
+            picker.init(game, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, history[side]);
+            if (picker.moveCount() == 0) {
+                return -Searcher.MATE + ply;
+            }
+            bestScore = -Searcher.INFINITY;
+        } else {
+            // Standing pat: the side to move is assumed to have a quiet move at least as good as doing nothing
+            bestScore = evaluator.evaluate(game);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+            picker.initCaptures(game);
+        }
+
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            Piece.PieceType promotion = PackedMove.promotion(move);
+            if (!inCheck && promotion != null && promotion != Piece.PieceType.QUEEN) {
+                continue;
+            }
+            game.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    // A quiet move that caused a cutoff becomes a killer and the countermove to the previous move, and gains
+    // history; the quiet moves searched before it without success lose history
+    private void rewardQuietMove(int ply, int depth, int side, int move, int previousMove, int quietCount) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (previousMove != PackedMove.NONE) {
+            counterMoves[MovePicker.butterflyIndex(previousMove)] = move;
+        }
+
+        int bonus = Math.min(depth * depth, MAX_HISTORY_BONUS);
+        int[] sideHistory = history[side];
+        updateHistory(sideHistory, move, bonus);
+        for (int i = 0; i < quietCount; i++) {
+            updateHistory(sideHistory, quietsTried[ply][i], -bonus);
+        }
+    }
+
+    private static void updateHistory(int[] sideHistory, int move, int bonus) {
+        int index = MovePicker.butterflyIndex(move);
+        sideHistory[index] += bonus - sideHistory[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    private boolean hasPiecesOtherThanPawns() {
+        Board board = game.getBoard();
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        return (board.getOccupancy(us) & ~board.getPieces(us, Piece.PieceType.PAWN) & ~board.getPieces(us, Piece.PieceType.KING)) != 0;
+    }
+
+    private static boolean isMateScore(int score) {
+        return Math.abs(score) > Searcher.MATE - Searcher.MAX_PLY;
+    }
+
+    // Mate scores are stored relative to the node rather than the root, so they stay correct at any ply
+    private static int scoreToTable(int score, int ply) {
+        int mateBound = Searcher.MATE - Searcher.MAX_PLY;
+        return score > mateBound ? score + ply : score < -mateBound ? score - ply : score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        int mateBound = Searcher.MATE - Searcher.MAX_PLY;
+        return score > mateBound ? score - ply : score < -mateBound ? score + ply : score;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][0] = move;
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+}
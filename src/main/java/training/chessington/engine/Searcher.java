@@ -0,0 +1,127 @@
+package training.chessington.engine;
+
+import training.chessington.model.Game;
+
+import java.util.Arrays;
+
+public class Searcher {
+
+    public static final int MAX_PLY = 128;
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private SearchOptions options = SearchOptions.allEnabled();
+    private SearchListener listener;
+    private SearchWorker[] workers = {new SearchWorker(this, 0)};
+
+    private volatile boolean stopRequested;
+    private TimeManager timeManager;
+
+    public Searcher() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    public Searcher(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(SearchOptions options) {
+        this.options = options;
+    }
+
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    // Parts per thousand of the transposition table filled by the current search
+    public int hashfull() {
+        return table.hashfull();
+    }
+
+    public void clearHash() {
+        table.clear();
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // Lazy SMP: the extra threads search the same root at staggered depths, sharing only the
+    // transposition table, and the main thread's result is the one reported
+    public void setThreads(int threads) {
+        int oldCount = workers.length;
+        workers = Arrays.copyOf(workers, Math.max(1, threads));
+        for (int i = oldCount; i < workers.length; i++) {
+            workers[i] = new SearchWorker(this, i);
+        }
+    }
+
+    public SearchResult search(Game position, SearchLimits limits) {
+        stopRequested = false;
+        timeManager = TimeManager.forLimits(limits);
+        table.newSearch();
+
+        // Every thread gets its own copy of the position, so workers never share a Game
+        Thread[] helpers = new Thread[workers.length - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            SearchWorker helper = workers[i + 1];
+            Game copy = position.createCopy();
+            helpers[i] = new Thread(() -> helper.search(copy, limits), "search-helper-" + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        SearchResult result = workers[0].search(position.createCopy(), limits);
+
+        stopRequested = true;
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long nodes = result.getNodes() + helperNodes();
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), result.getPrincipalVariation(), nodes);
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    TranspositionTable getTable() {
+        return table;
+    }
+
+    boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    void reportIteration(SearchResult result) {
+        if (listener != null) {
+            long nodes = result.getNodes() + helperNodes();
+            listener.onIterationComplete(new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), result.getPrincipalVariation(), nodes));
+        }
+    }
+
+    long helperNodes() {
+        long nodes = 0;
+        for (int i = 1; i < workers.length; i++) {
+            nodes += workers[i].getPublishedNodes();
+        }
+        return nodes;
+    }
+}
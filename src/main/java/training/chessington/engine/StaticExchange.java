@@ -0,0 +1,86 @@
+package training.chessington.engine;
+
+import training.chessington.model.Board;
+import training.chessington.model.Game;
+import training.chessington.model.PackedMove;
+import training.chessington.model.PlayerColour;
+import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Pieces;
+
+final class StaticExchange {
+
+    private static final Piece.PieceType[] TYPES = Piece.PieceType.values();
+    static final int MAX_EXCHANGES = 32;
+
+    private StaticExchange() {
+    }
+
+    // Material won by the side making the move once both sides have made every capture on the
+    // destination that pays for them, cheapest attacker first. Pins are ignored.
+    // The caller owns gain, a scratch array of MAX_EXCHANGES entries, so no call allocates.
+    static int evaluate(Board board, int move, int[] gain) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int mover = board.pieceAt(from);
+        PlayerColour side = Pieces.fromCode(mover).getColour();
+        long occupancy = board.getOccupancy() ^ (1L << from);
+
+        if ((PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0) {
+            gain[0] = Evaluator.pieceValue(Piece.PieceType.PAWN);
+            occupancy ^= 1L << ((from / Game.SIZE) * Game.SIZE + to % Game.SIZE);
+        } else {
+            int victim = board.pieceAt(to);
+            gain[0] = victim == Pieces.NONE ? 0 : Evaluator.pieceValue(TYPES[Pieces.typeOf(victim)]);
+        }
+
+        Piece.PieceType promotion = PackedMove.promotion(move);
+        int valueOnSquare = Evaluator.pieceValue(TYPES[Pieces.typeOf(mover)]);
+        if (promotion != null) {
+            valueOnSquare = Evaluator.pieceValue(promotion);
+            gain[0] += valueOnSquare - Evaluator.pieceValue(Piece.PieceType.PAWN);
+        }
+
+        // Sliders behind a capturing piece join in once it leaves, so attackers are recomputed from the occupancy
+        long attackers = allAttackers(board, to, occupancy);
+        int depth = 0;
+        while (depth + 1 < MAX_EXCHANGES) {
+            side = side.opponent();
+            long ownAttackers = attackers & board.getOccupancy(side);
+            if (ownAttackers == 0) {
+                break;
+            }
+
+            int type = 0;
+            long attacker = 0;
+            for (; type < Pieces.TYPE_COUNT; type++) {
+                attacker = ownAttackers & board.getPieces(side, TYPES[type]);
+                if (attacker != 0) {
+                    break;
+                }
+            }
+            attacker &= -attacker;
+
+            // The king may only recapture if nothing can take it back
+            if (type == Piece.PieceType.KING.ordinal() && (attackers & board.getOccupancy(side.opponent())) != 0) {
+                break;
+            }
+
+            depth++;
+            gain[depth] = valueOnSquare - gain[depth - 1];
+            valueOnSquare = Evaluator.pieceValue(TYPES[type]);
+            occupancy ^= attacker;
+            attackers = allAttackers(board, to, occupancy);
+        }
+
+        // Either side may stop capturing whenever continuing would lose material
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    private static long allAttackers(Board board, int square, long occupancy) {
+        return (board.attackersTo(square, PlayerColour.WHITE, occupancy) | board.attackersTo(square, PlayerColour.BLACK, occupancy)) & occupancy;
+    }
+}
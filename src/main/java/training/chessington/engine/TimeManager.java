@@ -0,0 +1,96 @@
+package training.chessington.engine;
+
+import training.chessington.model.PackedMove;
+
+// Decides how long a search may run. The soft limit is the time we would like to spend and is only
+// checked between iterations, scaled by how settled the search looks; the hard limit is never exceeded.
+public class TimeManager {
+
+    // Allowance for the time between the engine deciding and the clock stopping
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final int MAX_MOVES_TO_GO = 50;
+    private static final int HARD_LIMIT_FACTOR = 5;
+    private static final double MIN_CLOCK_SHARE = 0.3;
+    private static final double MAX_CLOCK_SHARE = 0.9;
+
+    // Soft limit multiplier by the number of iterations the best move has survived unchanged
+    private static final double[] STABILITY_SCALE = {1.6, 1.3, 1.1, 0.95, 0.8, 0.7};
+
+    // A score that falls between iterations earns up to this much extra time
+    private static final int SCORE_DROP_CAP = 150;
+    private static final double MAX_SCORE_DROP_SCALE = 0.8;
+
+    private final long startNanos = System.nanoTime();
+    private final long softLimitMillis;
+    private final long hardLimitMillis;
+    private final long hardLimitNanos;
+    private final boolean adaptive;
+
+    private int previousBestMove = PackedMove.NONE;
+    private int previousScore;
+    private int stableIterations;
+    private double scale = 1.0;
+
+    private TimeManager(long softLimitMillis, long hardLimitMillis, boolean adaptive) {
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+        // Limits too large to count in nanoseconds are as good as none
+        this.hardLimitNanos = hardLimitMillis >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : hardLimitMillis * 1_000_000;
+        this.adaptive = adaptive;
+    }
+
+    public static TimeManager forLimits(SearchLimits limits) {
+        if (limits.getRemainingMillis() >= 0) {
+            return forClock(limits.getRemainingMillis(), limits.getIncrementMillis(), limits.getMovesToGo());
+        }
+        // A fixed move time is spent in full, and without any limit the search runs until stopped
+        return new TimeManager(limits.getTimeMillis(), limits.getTimeMillis(), false);
+    }
+
+    public static TimeManager forClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long available = Math.max(1, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        int movesLeft = movesToGo > 0 ? Math.min(movesToGo, MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+
+        // The closer the time control, the larger the share of the clock one move may take
+        double share = Math.max(MIN_CLOCK_SHARE, Math.min(MAX_CLOCK_SHARE, 2.0 / movesLeft));
+        long hard = Math.max(1, Math.min((long) (available * share), (available / movesLeft + incrementMillis) * HARD_LIMIT_FACTOR));
+        long soft = Math.max(1, Math.min(hard, available / movesLeft + incrementMillis * 3 / 4));
+        return new TimeManager(soft, hard, true);
+    }
+
+    // Called after each completed iteration; returns whether another iteration is worth starting
+    public boolean onIterationComplete(int bestMove, int score) {
+        if (!adaptive) {
+            return false;
+        }
+        boolean first = previousBestMove == PackedMove.NONE;
+        stableIterations = !first && bestMove == previousBestMove ? stableIterations + 1 : 0;
+        scale = STABILITY_SCALE[Math.min(stableIterations, STABILITY_SCALE.length - 1)];
+        if (!first && score < previousScore) {
+            scale *= 1 + MAX_SCORE_DROP_SCALE * Math.min(previousScore - score, SCORE_DROP_CAP) / SCORE_DROP_CAP;
+        }
+        previousBestMove = bestMove;
+        previousScore = score;
+        return elapsedMillis() >= getSoftLimitMillis();
+    }
+
+    public boolean isHardLimitReached() {
+        return System.nanoTime() - startNanos >= hardLimitNanos;
+    }
+
+    public long getSoftLimitMillis() {
+        if (softLimitMillis == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.min(hardLimitMillis, (long) (softLimitMillis * scale));
+    }
+
+    public long getHardLimitMillis() {
+        return hardLimitMillis;
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
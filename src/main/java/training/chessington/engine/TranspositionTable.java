@@ -0,0 +1,117 @@
+package training.chessington.engine;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+    public static final long NOT_FOUND = 0;
+
+    private static final long MAX_BUCKETS = 1L << 28;
+    private static final int LONGS_PER_BUCKET = 4;
+
+    // Data layout: move in bits 0-19, score + 32768 in bits 20-35, depth in bits 36-43,
+    // bound in bits 44-45 and search generation in bits 46-53. A stored entry always has a
+    // non-zero bound, so an all-zero data word never matches.
+    private static final int SCORE_SHIFT = 20;
+    private static final int DEPTH_SHIFT = 36;
+    private static final int BOUND_SHIFT = 44;
+    private static final int GENERATION_SHIFT = 46;
+
+    // Each bucket holds two slots of (position hash ^ data, data): the first is kept for the deepest
+    // result of the current search, the second is always replaced. A reader that sees a slot half way
+    // through another thread's store fails the XOR check, so threads share the table without locking.
+    private final long[] entries;
+    private final int bucketMask;
+    private int generation;
+
+    public TranspositionTable(int megabytes) {
+        long buckets = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / (LONGS_PER_BUCKET * 8)));
+        buckets = Math.min(buckets, MAX_BUCKETS);
+        entries = new long[(int) buckets * LONGS_PER_BUCKET];
+        bucketMask = (int) buckets - 1;
+    }
+
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    public long probe(long hash) {
+        int index = bucketIndex(hash);
+        for (int slot = index; slot < index + LONGS_PER_BUCKET; slot += 2) {
+            long data = entries[slot + 1];
+            if ((entries[slot] ^ data) == hash && data != NOT_FOUND) {
+                return data;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public void store(long hash, int depth, int bound, int score, int move) {
+        int index = bucketIndex(hash);
+        long preferred = entries[index + 1];
+        boolean samePosition = (entries[index] ^ preferred) == hash;
+        if (samePosition || depth >= depth(preferred) || generation(preferred) != generation) {
+            // Keep the best move of a shallower result for this position rather than losing it to an upper bound
+            if (samePosition && move == 0) {
+                move = move(preferred);
+            }
+            write(index, hash, depth, bound, score, move);
+        } else {
+            write(index + 2, hash, depth, bound, score, move);
+        }
+    }
+
+    // Approximate occupancy by current-search entries, in parts per thousand, sampled from the first buckets
+    public int hashfull() {
+        int sampled = Math.min(1000, entries.length / 2);
+        int used = 0;
+        for (int slot = 0; slot < sampled; slot++) {
+            long data = entries[slot * 2 + 1];
+            if (data != NOT_FOUND && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFFF);
+    }
+
+    public static int score(long data) {
+        return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & 0x3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> GENERATION_SHIFT) & 0xFF);
+    }
+
+    private void write(int slot, long hash, int depth, int bound, int score, int move) {
+        long data = (move & 0xFFFFFL)
+                | ((long) (score + 32768) << SCORE_SHIFT)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) generation << GENERATION_SHIFT);
+        entries[slot] = hash ^ data;
+        entries[slot + 1] = data;
+    }
+
+    private int bucketIndex(long hash) {
+        return ((int) hash & bucketMask) * LONGS_PER_BUCKET;
+    }
+}
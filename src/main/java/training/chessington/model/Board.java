@@ -4,29 +4,46 @@ import training.chessington.model.pieces.*;
 
 public class Board {
 
-    private Piece[][] board = new Piece[8][8];
+    // One bitboard per piece code (see Pieces.code), where bit (row * 8 + col) is set if that piece is on the square.
+    private final long[] pieces = new long[Pieces.COUNT];
+    private final long[] colours = new long[PlayerColour.values().length];
+    private long occupied;
+    private long hash;
+    private long pawnHash;
+
+    // Running sums of PieceSquareTables over the pieces on the board, white minus black
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
 
     private Board() {
     }
 
     public Board createCopy() {
         Board copyOfBoard = new Board();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                copyOfBoard.board[i][j] = this.board[i][j];
-            }
-        }
+        copyOfBoard.copyFrom(this);
         return copyOfBoard;
     }
 
+    public void copyFrom(Board source) {
+        System.arraycopy(source.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(source.colours, 0, colours, 0, colours.length);
+        occupied = source.occupied;
+        hash = source.hash;
+        pawnHash = source.pawnHash;
+        midgameScore = source.midgameScore;
+        endgameScore = source.endgameScore;
+        phase = source.phase;
+    }
+
     public static Board forNewGame() {
         Board board = new Board();
         board.setBackRow(0, PlayerColour.BLACK);
         board.setBackRow(7, PlayerColour.WHITE);
 
         for (int col = 0; col < 8; col++) {
-            board.board[1][col] = new Pawn(PlayerColour.BLACK);
-            board.board[6][col] = new Pawn(PlayerColour.WHITE);
+            board.placePiece(Game.SIZE + col, Pieces.code(PlayerColour.BLACK, Piece.PieceType.PAWN));
+            board.placePiece(6 * Game.SIZE + col, Pieces.code(PlayerColour.WHITE, Piece.PieceType.PAWN));
         }
 
         return board;
@@ -37,31 +54,160 @@ public class Board {
     }
 
     private void setBackRow(int rowIndex, PlayerColour colour) {
-        board[rowIndex][0] = new Rook(colour);
-        board[rowIndex][1] = new Knight(colour);
-        board[rowIndex][2] = new Bishop(colour);
-        board[rowIndex][3] = new Queen(colour);
-        board[rowIndex][4] = new King(colour);
-        board[rowIndex][5] = new Bishop(colour);
-        board[rowIndex][6] = new Knight(colour);
-        board[rowIndex][7] = new Rook(colour);
+        int square = rowIndex * Game.SIZE;
+        placePiece(square, Pieces.code(colour, Piece.PieceType.ROOK));
+        placePiece(square + 1, Pieces.code(colour, Piece.PieceType.KNIGHT));
+        placePiece(square + 2, Pieces.code(colour, Piece.PieceType.BISHOP));
+        placePiece(square + 3, Pieces.code(colour, Piece.PieceType.QUEEN));
+        placePiece(square + 4, Pieces.code(colour, Piece.PieceType.KING));
+        placePiece(square + 5, Pieces.code(colour, Piece.PieceType.BISHOP));
+        placePiece(square + 6, Pieces.code(colour, Piece.PieceType.KNIGHT));
+        placePiece(square + 7, Pieces.code(colour, Piece.PieceType.ROOK));
     }
 
     public Piece get(Coordinates coords) {
-        return board[coords.getRow()][coords.getCol()];
+        return Pieces.fromCode(pieceAt(squareOf(coords)));
+    }
+
+    public int pieceAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) {
+            return Pieces.NONE;
+        }
+        int first = (colours[PlayerColour.WHITE.ordinal()] & bit) != 0 ? 0 : Pieces.TYPE_COUNT;
+        for (int code = first; code < first + Pieces.TYPE_COUNT; code++) {
+            if ((pieces[code] & bit) != 0) {
+                return code;
+            }
+        }
+        return Pieces.NONE;
+    }
+
+    public long getPieces(int code) {
+        return pieces[code];
+    }
+
+    public long getPieces(PlayerColour colour, Piece.PieceType type) {
+        return pieces[Pieces.code(colour, type)];
+    }
+
+    public long getOccupancy(PlayerColour colour) {
+        return colours[colour.ordinal()];
+    }
+
+    public long getOccupancy() {
+        return occupied;
+    }
+
+    public long attackersTo(int square, PlayerColour colour, long occupancy) {
+        int pawns = Pieces.code(colour, Piece.PieceType.PAWN);
+        long queens = pieces[pawns + Piece.PieceType.QUEEN.ordinal()];
+        return (Attacks.pawnAttacks(colour.opponent(), square) & pieces[pawns])
+                | (Attacks.knightAttacks(square) & pieces[pawns + Piece.PieceType.KNIGHT.ordinal()])
+                | (Attacks.kingAttacks(square) & pieces[pawns + Piece.PieceType.KING.ordinal()])
+                | (Attacks.bishopAttacks(square, occupancy) & (pieces[pawns + Piece.PieceType.BISHOP.ordinal()] | queens))
+                | (Attacks.rookAttacks(square, occupancy) & (pieces[pawns + Piece.PieceType.ROOK.ordinal()] | queens));
+    }
+
+    public boolean isSquareAttackedBy(int square, PlayerColour colour) {
+        return isSquareAttackedBy(square, colour, occupied);
+    }
+
+    public boolean isSquareAttackedBy(int square, PlayerColour colour, long occupancy) {
+        // Look outward from the square with each piece's own move pattern, cheapest patterns first
+        int pawns = Pieces.code(colour, Piece.PieceType.PAWN);
+        if ((Attacks.pawnAttacks(colour.opponent(), square) & pieces[pawns]) != 0
+                || (Attacks.knightAttacks(square) & pieces[pawns + Piece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.kingAttacks(square) & pieces[pawns + Piece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieces[pawns + Piece.PieceType.QUEEN.ordinal()];
+        long diagonalSliders = pieces[pawns + Piece.PieceType.BISHOP.ordinal()] | queens;
+        if (diagonalSliders != 0 && (Attacks.bishopAttacks(square, occupancy) & diagonalSliders) != 0) {
+            return true;
+        }
+        long orthogonalSliders = pieces[pawns + Piece.PieceType.ROOK.ordinal()] | queens;
+        return orthogonalSliders != 0 && (Attacks.rookAttacks(square, occupancy) & orthogonalSliders) != 0;
+    }
+
+    // Zobrist hash of the pieces alone; Game.positionHash adds the side to move and flags
+    public long getHash() {
+        return hash;
+    }
+
+    // Zobrist hash of the pawns alone, which changes only on pawn moves, captures and promotions
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    // Between 0 (no pieces but kings and pawns) and PieceSquareTables.MAX_PHASE for a full set; promotions may exceed it
+    public int getPhase() {
+        return phase;
     }
 
     public void obliterate(Coordinates coords) {
-        board[coords.getRow()][coords.getCol()] = null;
+        removePiece(squareOf(coords));
     }
 
     public void move(Coordinates from, Coordinates to) {
-        board[to.getRow()][to.getCol()] = board[from.getRow()][from.getCol()];
-        board[from.getRow()][from.getCol()] = null;
+        movePiece(squareOf(from), squareOf(to));
     }
 
     public void placePiece(Coordinates coords, Piece piece) {
-        board[coords.getRow()][coords.getCol()] = piece;
+        int square = squareOf(coords);
+        removePiece(square);
+        if (piece != null) {
+            placePiece(square, Pieces.code(piece));
+        }
+    }
+
+    // The square must be empty; make, unmake and the board builders guarantee it, while callers elsewhere use the Coordinates overload
+    void placePiece(int square, int code) {
+        long bit = 1L << square;
+        pieces[code] |= bit;
+        colours[Pieces.colourOf(code)] |= bit;
+        occupied |= bit;
+        hash ^= Zobrist.pieceSquare(code, square);
+        if (Pieces.typeOf(code) == Piece.PieceType.PAWN.ordinal()) {
+            pawnHash ^= Zobrist.pieceSquare(code, square);
+        }
+        midgameScore += PieceSquareTables.midgame(code, square);
+        endgameScore += PieceSquareTables.endgame(code, square);
+        phase += PieceSquareTables.phase(code);
+    }
+
+    public void removePiece(int square) {
+        int code = pieceAt(square);
+        if (code != Pieces.NONE) {
+            long mask = ~(1L << square);
+            pieces[code] &= mask;
+            colours[Pieces.colourOf(code)] &= mask;
+            occupied &= mask;
+            hash ^= Zobrist.pieceSquare(code, square);
+            if (Pieces.typeOf(code) == Piece.PieceType.PAWN.ordinal()) {
+                pawnHash ^= Zobrist.pieceSquare(code, square);
+            }
+            midgameScore -= PieceSquareTables.midgame(code, square);
+            endgameScore -= PieceSquareTables.endgame(code, square);
+            phase -= PieceSquareTables.phase(code);
+        }
+    }
+
+    public void movePiece(int from, int to) {
+        int code = pieceAt(from);
+        removePiece(to);
+        if (code != Pieces.NONE) {
+            removePiece(from);
+            placePiece(to, code);
+        }
     }
 
     public boolean inBounds(Coordinates coords) {
@@ -69,23 +215,28 @@ public class Board {
     }
 
     public boolean squareIsEmpty(Coordinates coords) {
-        return get(coords) == null;
+        return (occupied & (1L << squareOf(coords))) == 0;
     }
 
     public boolean squareContainsPieceOfColour(Coordinates coords, PlayerColour colour) {
-        Piece piece = get(coords);
-        return piece != null && piece.getColour() == colour;
+        return (colours[colour.ordinal()] & (1L << squareOf(coords))) != 0;
     }
 
-    public Coordinates findKingOfColour(PlayerColour colour) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                Piece piece = board[i][j];
-                if (piece != null && piece.getType() == Piece.PieceType.KING && piece.getColour() == colour) {
-                    return new Coordinates(i, j);
-                }
-            }
+    // Shifts by an off-board square would wrap onto another square, so such coordinates fail as they did on the old array board
+    private int squareOf(Coordinates coords) {
+        if (!inBounds(coords)) {
+            throw new ArrayIndexOutOfBoundsException("Coordinates off the board: " + coords);
         }
-        return null;
+        return coords.toSquare();
+    }
+
+    public Coordinates findKingOfColour(PlayerColour colour) {
+        int square = findKingSquare(colour);
+        return square < 0 ? null : Coordinates.fromSquare(square);
+    }
+
+    public int findKingSquare(PlayerColour colour) {
+        long kings = pieces[Pieces.code(colour, Piece.PieceType.KING)];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
     }
 }
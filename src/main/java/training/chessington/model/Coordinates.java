@@ -3,6 +3,14 @@ package training.chessington.model;
 import java.util.Objects;
 
 public final class Coordinates {
+    private static final Coordinates[] SQUARES = new Coordinates[Game.SIZE * Game.SIZE];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new Coordinates(square / Game.SIZE, square % Game.SIZE);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -11,6 +19,10 @@ public final class Coordinates {
         this.col = col;
     }
 
+    public static Coordinates fromSquare(int square) {
+        return SQUARES[square];
+    }
+
     public int getRow() {
         return row;
     }
@@ -19,6 +31,10 @@ public final class Coordinates {
         return col;
     }
 
+    public int toSquare() {
+        return row * Game.SIZE + col;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
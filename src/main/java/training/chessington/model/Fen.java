@@ -0,0 +1,221 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Pieces;
+
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Indexed by PieceType ordinal
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    private Fen() {
+    }
+
+    public static Game parse(String fen) {
+        Board board = Board.empty();
+        Flags flags = Flags.forNewGame().withNoSpecialMoves();
+        int length = fen.length();
+        int i = 0;
+
+        // Piece placement, starting from row 0 (rank 8)
+        int row = 0;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != Game.SIZE || row == Game.SIZE - 1) {
+                    throw invalid(fen, "row does not have 8 squares");
+                }
+                row++;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > Game.SIZE) {
+                    throw invalid(fen, "row does not have 8 squares");
+                }
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toUpperCase(c));
+                if (type < 0 || col >= Game.SIZE) {
+                    throw invalid(fen, "unexpected '" + c + "' in piece placement");
+                }
+                PlayerColour colour = Character.isUpperCase(c) ? PlayerColour.WHITE : PlayerColour.BLACK;
+                board.placePiece(row * Game.SIZE + col++, colour.ordinal() * Pieces.TYPE_COUNT + type);
+            }
+        }
+        if (row != Game.SIZE - 1 || col != Game.SIZE) {
+            throw invalid(fen, "piece placement does not have 8 rows of 8 squares");
+        }
+
+        // Side to move
+        i = skipSpace(fen, i);
+        PlayerColour nextPlayer;
+        char side = i < length ? fen.charAt(i++) : ' ';
+        if (side == 'w') {
+            nextPlayer = PlayerColour.WHITE;
+        } else if (side == 'b') {
+            nextPlayer = PlayerColour.BLACK;
+        } else {
+            throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+
+        // Castling rights
+        i = skipSpace(fen, i);
+        int castlingRights = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'K': castlingRights |= Flags.WHITE_KINGSIDE_CASTLE; break;
+                case 'Q': castlingRights |= Flags.WHITE_QUEENSIDE_CASTLE; break;
+                case 'k': castlingRights |= Flags.BLACK_KINGSIDE_CASTLE; break;
+                case 'q': castlingRights |= Flags.BLACK_QUEENSIDE_CASTLE; break;
+                case '-': break;
+                default: throw invalid(fen, "unexpected '" + fen.charAt(i) + "' in castling rights");
+            }
+        }
+        flags.setCastlingRights(castlingRights);
+
+        // En passant square
+        i = skipSpace(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i + 1 < length) {
+            // The square passed over by a double pawn push: rank 6 when white is to move, rank 3 when black is
+            int epCol = fen.charAt(i) - 'a';
+            char epRank = fen.charAt(i + 1);
+            if (epCol < 0 || epCol >= Game.SIZE || epRank != (nextPlayer == PlayerColour.WHITE ? '6' : '3')) {
+                throw invalid(fen, "bad en passant square");
+            }
+            // The pawn that just moved must be in front of the square, with the square and its start square empty
+            int epSquare = ('8' - epRank) * Game.SIZE + epCol;
+            int forward = nextPlayer == PlayerColour.WHITE ? Game.SIZE : -Game.SIZE;
+            if (board.pieceAt(epSquare + forward) != Pieces.code(nextPlayer.opponent(), Piece.PieceType.PAWN)
+                    || board.pieceAt(epSquare) != Pieces.NONE || board.pieceAt(epSquare - forward) != Pieces.NONE) {
+                throw invalid(fen, "no pawn can have just moved past the en passant square");
+            }
+            flags.setEnPassantSquareIndex(epSquare);
+            i += 2;
+        } else {
+            throw invalid(fen, "missing en passant square");
+        }
+
+        // Halfmove clock and fullmove number are optional, as EPD-style positions often leave them out
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (i < length) {
+            i = skipSpace(fen, i);
+            if (i < length) {
+                halfmoveClock = parseNumber(fen, i);
+                i = skipNumber(fen, i);
+                if (i < length) {
+                    i = skipSpace(fen, i);
+                    if (i < length) {
+                        fullmoveNumber = Math.max(1, parseNumber(fen, i));
+                        i = skipNumber(fen, i);
+                    }
+                }
+            }
+        }
+        // Only trailing spaces may follow the last field
+        while (i < length && fen.charAt(i) == ' ') {
+            i++;
+        }
+        if (i < length) {
+            throw invalid(fen, "unexpected '" + fen.charAt(i) + "' after the move clocks");
+        }
+
+        Game game = new Game(board, flags);
+        game.getGameInfo().setNextPlayer(nextPlayer);
+        game.getGameInfo().setHalfmoveClock(halfmoveClock);
+        game.getGameInfo().setFullmoveNumber(fullmoveNumber);
+        return game;
+    }
+
+    public static String format(Game game) {
+        Board board = game.getBoard();
+        Flags flags = game.getFlags();
+        GameInfo gameInfo = game.getGameInfo();
+        StringBuilder fen = new StringBuilder(90);
+
+        for (int row = 0; row < Game.SIZE; row++) {
+            if (row > 0) {
+                fen.append('/');
+            }
+            int empty = 0;
+            for (int col = 0; col < Game.SIZE; col++) {
+                int code = board.pieceAt(row * Game.SIZE + col);
+                if (code == Pieces.NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(Pieces.typeOf(code));
+                fen.append(Pieces.colourOf(code) == PlayerColour.WHITE.ordinal() ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+        }
+
+        fen.append(gameInfo.getNextPlayer() == PlayerColour.WHITE ? " w " : " b ");
+
+        // Castling flags are single bits in "KQkq" order
+        int castlingRights = flags.getCastlingRights();
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < CASTLING_LETTERS.length(); right++) {
+            if ((castlingRights & 1 << right) != 0) {
+                fen.append(CASTLING_LETTERS.charAt(right));
+            }
+        }
+
+        int enPassant = flags.getEnPassantSquareIndex();
+        if (enPassant == Flags.NO_SQUARE) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + enPassant % Game.SIZE)).append((char) ('8' - enPassant / Game.SIZE));
+        }
+
+        return fen.append(' ').append(gameInfo.getHalfmoveClock())
+                .append(' ').append(gameInfo.getFullmoveNumber())
+                .toString();
+    }
+
+    private static int parseNumber(String fen, int i) {
+        int end = skipNumber(fen, i);
+        if (end == i || end - i > 6) {
+            throw invalid(fen, "bad move number at index " + i);
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + fen.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static int skipNumber(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSpace(String fen, int i) {
+        if (i >= fen.length() || fen.charAt(i) != ' ') {
+            throw invalid(fen, "expected a space at index " + i);
+        }
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException(String.format("Invalid FEN \"%s\": %s", fen, reason));
+    }
+}
@@ -4,83 +4,105 @@ import java.util.Optional;
 
 public class Flags {
 
-    private boolean whiteKingsideCastle;
-    private boolean whiteQueensideCastle;
-    private boolean blackKingsideCastle;
-    private boolean blackQueensideCastle;
-    private Optional<Coordinates> enPassantSquare;
-    private Optional<Coordinates> pawnPromotionSquare;
+    public static final int WHITE_KINGSIDE_CASTLE = 1;
+    public static final int WHITE_QUEENSIDE_CASTLE = 2;
+    public static final int BLACK_KINGSIDE_CASTLE = 4;
+    public static final int BLACK_QUEENSIDE_CASTLE = 8;
+    public static final int ALL_CASTLING = 15;
+    public static final int NO_SQUARE = -1;
+
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private Optional<Coordinates> pawnPromotionSquare = Optional.empty();
 
     public static Flags forNewGame() {
         Flags flags = new Flags();
-        flags.whiteKingsideCastle = true;
-        flags.whiteQueensideCastle = true;
-        flags.blackKingsideCastle = true;
-        flags.blackQueensideCastle = true;
-        flags.enPassantSquare = Optional.empty();
+        flags.castlingRights = ALL_CASTLING;
+        flags.enPassantSquare = NO_SQUARE;
         flags.pawnPromotionSquare = Optional.empty();
         return flags;
     }
 
     public Flags withNoSpecialMoves() {
         Flags flags = createCopy();
-        flags.whiteKingsideCastle = flags.whiteQueensideCastle = false;
-        flags.blackKingsideCastle = flags.blackQueensideCastle = false;
-        flags.enPassantSquare = Optional.empty();
+        flags.castlingRights = 0;
+        flags.enPassantSquare = NO_SQUARE;
         return flags;
     }
 
     public Flags createCopy() {
         Flags flags = new Flags();
-        flags.whiteKingsideCastle = whiteKingsideCastle;
-        flags.whiteQueensideCastle = whiteQueensideCastle;
-        flags.blackKingsideCastle = blackKingsideCastle;
-        flags.blackQueensideCastle = blackQueensideCastle;
-        flags.enPassantSquare = enPassantSquare;
+        flags.copyFrom(this);
         return flags;
     }
 
+    public void copyFrom(Flags source) {
+        castlingRights = source.castlingRights;
+        enPassantSquare = source.enPassantSquare;
+        pawnPromotionSquare = source.pawnPromotionSquare;
+    }
+
     public Optional<Coordinates> getEnPassantSquare() {
-        return enPassantSquare;
+        return enPassantSquare == NO_SQUARE ? Optional.empty() : Optional.of(Coordinates.fromSquare(enPassantSquare));
     }
 
     public void setEnPassantSquare(Optional<Coordinates> enPassantSquare) {
+        this.enPassantSquare = enPassantSquare.map(Coordinates::toSquare).orElse(NO_SQUARE);
+    }
+
+    public int getEnPassantSquareIndex() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquareIndex(int enPassantSquare) {
         this.enPassantSquare = enPassantSquare;
     }
 
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
     public void setWhiteKingsideCastle(boolean whiteKingsideCastle) {
-        this.whiteKingsideCastle = whiteKingsideCastle;
+        setCastlingRight(WHITE_KINGSIDE_CASTLE, whiteKingsideCastle);
     }
 
     public void setWhiteQueensideCastle(boolean whiteQueensideCastle) {
-        this.whiteQueensideCastle = whiteQueensideCastle;
+        setCastlingRight(WHITE_QUEENSIDE_CASTLE, whiteQueensideCastle);
     }
 
     public void setBlackKingsideCastle(boolean blackKingsideCastle) {
-        this.blackKingsideCastle = blackKingsideCastle;
+        setCastlingRight(BLACK_KINGSIDE_CASTLE, blackKingsideCastle);
     }
 
     public void setBlackQueensideCastle(boolean blackQueensideCastle) {
-        this.blackQueensideCastle = blackQueensideCastle;
+        setCastlingRight(BLACK_QUEENSIDE_CASTLE, blackQueensideCastle);
+    }
+
+    private void setCastlingRight(int right, boolean allowed) {
+        castlingRights = allowed ? castlingRights | right : castlingRights & ~right;
     }
 
     public void forbidCastling(PlayerColour colour) {
         switch (colour) {
             case WHITE:
-                whiteQueensideCastle = whiteKingsideCastle = false;
+                castlingRights &= ~(WHITE_KINGSIDE_CASTLE | WHITE_QUEENSIDE_CASTLE);
                 break;
             case BLACK:
-                blackQueensideCastle = blackKingsideCastle = false;
+                castlingRights &= ~(BLACK_KINGSIDE_CASTLE | BLACK_QUEENSIDE_CASTLE);
                 break;
         }
     }
 
     public boolean isKingsideCastle(PlayerColour colour) {
-        return colour == PlayerColour.WHITE ? whiteKingsideCastle : blackKingsideCastle;
+        return (castlingRights & (colour == PlayerColour.WHITE ? WHITE_KINGSIDE_CASTLE : BLACK_KINGSIDE_CASTLE)) != 0;
     }
 
     public boolean isQueensideCastle(PlayerColour colour) {
-        return colour == PlayerColour.WHITE ? whiteQueensideCastle : blackQueensideCastle;
+        return (castlingRights & (colour == PlayerColour.WHITE ? WHITE_QUEENSIDE_CASTLE : BLACK_QUEENSIDE_CASTLE)) != 0;
     }
 
     public Optional<Coordinates> getPawnPromotionSquare() {
@@ -90,4 +112,4 @@ public class Flags {
     public void setPawnPromotionSquare(Optional<Coordinates> pawnPromotionSquare) {
         this.pawnPromotionSquare = pawnPromotionSquare;
     }
-}
\ No newline at end of file
+}
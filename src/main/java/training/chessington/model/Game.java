@@ -3,16 +3,34 @@ package training.chessington.model;
 import training.chessington.model.pieces.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class Game {
     public static final int SIZE = 8;
+    private static final int[] CASTLING_RIGHTS_KEPT = new int[SIZE * SIZE];
+
+    static {
+        Arrays.fill(CASTLING_RIGHTS_KEPT, Flags.ALL_CASTLING);
+        CASTLING_RIGHTS_KEPT[0] = ~Flags.BLACK_QUEENSIDE_CASTLE;
+        CASTLING_RIGHTS_KEPT[4] = ~(Flags.BLACK_KINGSIDE_CASTLE | Flags.BLACK_QUEENSIDE_CASTLE);
+        CASTLING_RIGHTS_KEPT[7] = ~Flags.BLACK_KINGSIDE_CASTLE;
+        CASTLING_RIGHTS_KEPT[56] = ~Flags.WHITE_QUEENSIDE_CASTLE;
+        CASTLING_RIGHTS_KEPT[60] = ~(Flags.WHITE_KINGSIDE_CASTLE | Flags.WHITE_QUEENSIDE_CASTLE);
+        CASTLING_RIGHTS_KEPT[63] = ~Flags.WHITE_KINGSIDE_CASTLE;
+    }
+
     private final Board board;
     private final Flags flags;
     private final GameInfo gameInfo;
 
+    // Undo records for makeMove(int): the move itself, the state it overwrote and the position hash before it
+    private int[] undoMoves = new int[64];
+    private int[] undoStates = new int[64];
+    private long[] undoHashes = new long[64];
+    private int undoCount;
+
     public Game(Board board, Flags flags) {
         this.board = board;
         this.flags = flags;
@@ -25,6 +43,41 @@ public class Game {
         return new Game(board, flags);
     }
 
+    public static Game fromFen(String fen) {
+        return Fen.parse(fen);
+    }
+
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    public Game createCopy() {
+        Game copy = new Game(Board.empty(), Flags.forNewGame());
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    // Turns this game into a copy of another without allocating, so that one instance can be reused for many games
+    public void copyFrom(Game source) {
+        board.copyFrom(source.board);
+        flags.copyFrom(source.flags);
+        gameInfo.setNextPlayer(source.gameInfo.getNextPlayer());
+        gameInfo.setResult(source.gameInfo.getResult());
+        gameInfo.setHalfmoveClock(source.gameInfo.getHalfmoveClock());
+        gameInfo.setFullmoveNumber(source.gameInfo.getFullmoveNumber());
+
+        // The undo history comes along so that the copy can still spot repetitions of earlier positions
+        if (undoMoves.length < source.undoCount) {
+            undoMoves = new int[source.undoMoves.length];
+            undoStates = new int[source.undoMoves.length];
+            undoHashes = new long[source.undoMoves.length];
+        }
+        System.arraycopy(source.undoMoves, 0, undoMoves, 0, source.undoCount);
+        System.arraycopy(source.undoStates, 0, undoStates, 0, source.undoCount);
+        System.arraycopy(source.undoHashes, 0, undoHashes, 0, source.undoCount);
+        undoCount = source.undoCount;
+    }
+
     public Board getBoard() {
         return board;
     }
@@ -37,8 +90,26 @@ public class Game {
         return gameInfo;
     }
 
+    public long positionHash() {
+        return board.getHash()
+                ^ Zobrist.castling(flags.getCastlingRights())
+                ^ Zobrist.enPassant(flags.getEnPassantSquareIndex())
+                ^ Zobrist.sideToMove(gameInfo.getNextPlayer());
+    }
+
+    public boolean isRepetition() {
+        // Only positions with the same side to move can repeat, and none before a null move counts
+        long hash = positionHash();
+        for (int ply = undoCount - 1; ply >= 0 && undoMoves[ply] != PackedMove.NONE; ply--) {
+            if ((undoCount - ply) % 2 == 0 && undoHashes[ply] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public Piece pieceAt(int row, int col) {
-        return board.get(new Coordinates(row, col));
+        return Pieces.fromCode(board.pieceAt(row * SIZE + col));
     }
 
     public List<Move> getAllowedMoves(Coordinates from) {
@@ -51,18 +122,19 @@ public class Game {
             return new ArrayList<>();
         }
 
-        List<Move> candidateMoves = piece.getAllowedMoves(from, this);
-        return candidateMoves.stream().filter(this::moveWouldNotLeavePlayerInCheck).collect(Collectors.toList());
+        MoveList legalMoves = new MoveList();
+        generateLegalMoves(legalMoves);
+        MoveList pieceMoves = new MoveList();
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (PackedMove.from(legalMoves.get(i)) == from.toSquare()) {
+                pieceMoves.add(legalMoves.get(i));
+            }
+        }
+        return pieceMoves.toMoves();
     }
 
-    private boolean moveWouldNotLeavePlayerInCheck(Move move) {
-        PlayerColour thisPlayer = gameInfo.getNextPlayer();
-        PlayerColour otherPlayer = thisPlayer.opponent();
-
-        Game alternateGame = new Game(board.createCopy(), flags.createCopy());
-        alternateGame.getBoard().move(move.getFrom(), move.getTo());
-        Coordinates kingCoords = alternateGame.getBoard().findKingOfColour(thisPlayer);
-        return kingCoords == null || !alternateGame.squareIsThreatenedByColour(kingCoords, otherPlayer);
+    public void generateLegalMoves(MoveList moves) {
+        MoveGenerator.generateLegalMoves(this, moves);
     }
 
     public void makeMove(Move move) throws InvalidMoveException {
@@ -82,14 +154,118 @@ public class Game {
             throw new InvalidMoveException(String.format("Wrong colour piece - it is %s's turn", gameInfo.getNextPlayer()));
         }
 
-        if (!getAllowedMoves(move.getFrom()).contains(move)) {
+        int packedMove = findAllowedMove(from.toSquare(), to.toSquare());
+        if (packedMove == PackedMove.NONE) {
             throw new InvalidMoveException(String.format("Cannot move piece %s from %s to %s", piece, from, to));
         }
 
-        board.move(from, to);
-        checkForEnPassantCapture(piece, to);
-        checkForCastling(piece, from, to);
-        updateFlags(piece, from, to);
+        // The promotion piece is chosen afterwards, through promotePiece
+        makeMove(PackedMove.withoutPromotion(packedMove));
+
+        // Pawn promotion
+        if (PackedMove.isPromotion(packedMove)) {
+            flags.setPawnPromotionSquare(Optional.of(to));
+        }
+
+        // Game over
+        if (hasNoLegalMoves()) {
+            gameInfo.setResult(isInCheck() ? winResult() : Result.DRAW);
+        }
+    }
+
+    private int findAllowedMove(int from, int to) {
+        MoveList legalMoves = new MoveList();
+        generateLegalMoves(legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (PackedMove.from(move) == from && PackedMove.to(move) == to) {
+                return move;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int piece = board.pieceAt(from);
+        int capturedSquare = (PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0 ? enPassantCaptureSquare(from, to) : to;
+
+        pushUndo(move, board.pieceAt(capturedSquare));
+
+        board.movePiece(from, to);
+        checkForEnPassantCapture(move, capturedSquare);
+        checkForPromotion(move, piece);
+        checkForCastling(move, from, to);
+        updateFlags(move, from, to);
+        updateClocks(move, piece);
+    }
+
+    // Passes the turn without moving, for search heuristics; undone by unmakeMove like any other move
+    public void makeNullMove() {
+        pushUndo(PackedMove.NONE, Pieces.NONE);
+        flags.setEnPassantSquareIndex(Flags.NO_SQUARE);
+        gameInfo.switchPlayer();
+    }
+
+    public void unmakeMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        int state = undoStates[undoCount];
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+
+        gameInfo.switchPlayer();
+        if (move == PackedMove.NONE) {
+            flags.setEnPassantSquareIndex(((state >>> 8) & 0x7F) - 1);
+            return;
+        }
+        PlayerColour colour = gameInfo.getNextPlayer();
+        gameInfo.setHalfmoveClock(state >>> 16);
+        if (colour == PlayerColour.BLACK) {
+            gameInfo.setFullmoveNumber(gameInfo.getFullmoveNumber() - 1);
+        }
+
+        if ((PackedMove.flags(move) & PackedMove.CASTLING) != 0) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            board.movePiece(rookTo, rookFrom);
+        }
+
+        if (PackedMove.isPromotion(move)) {
+            board.removePiece(to);
+            board.placePiece(to, Pieces.code(colour, Piece.PieceType.PAWN));
+        }
+
+        board.movePiece(to, from);
+
+        int captured = (state & 0xF) - 1;
+        if (captured != Pieces.NONE) {
+            boolean enPassant = (PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0;
+            board.placePiece(enPassant ? enPassantCaptureSquare(from, to) : to, captured);
+        }
+
+        flags.setCastlingRights((state >>> 4) & 0xF);
+        flags.setEnPassantSquareIndex(((state >>> 8) & 0x7F) - 1);
+    }
+
+    private void pushUndo(int move, int captured) {
+        if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+            undoHashes = Arrays.copyOf(undoHashes, undoCount * 2);
+        }
+        // Captured piece code, castling rights and en passant square, each offset so that zero means "none",
+        // then the halfmove clock in the upper 16 bits
+        undoMoves[undoCount] = move;
+        undoHashes[undoCount] = positionHash();
+        undoStates[undoCount] = (captured + 1) | (flags.getCastlingRights() << 4) | ((flags.getEnPassantSquareIndex() + 1) << 8)
+                | (Math.min(gameInfo.getHalfmoveClock(), 0xFFFF) << 16);
+        undoCount++;
+    }
+
+    private static int enPassantCaptureSquare(int from, int to) {
+        return (from / SIZE) * SIZE + to % SIZE;
     }
 
     public void promotePiece(Piece.PieceType pieceType) {
@@ -104,44 +280,28 @@ public class Game {
         flags.setPawnPromotionSquare(Optional.empty());
     }
 
-    private void updateFlags(Piece piece, Coordinates from, Coordinates to) {
+    private void updateFlags(int move, int from, int to) {
 
         // En passant
-        if (piece.getType() == Piece.PieceType.PAWN && Math.abs(to.getRow() - from.getRow()) == 2) {
-            Coordinates inBetween = piece.getColour() == PlayerColour.WHITE ? from.plus(-1, 0) : from.plus(1, 0);
-            flags.setEnPassantSquare(Optional.of(inBetween));
+        if ((PackedMove.flags(move) & PackedMove.DOUBLE_PAWN_PUSH) != 0) {
+            flags.setEnPassantSquareIndex((from + to) / 2);
         } else {
-            flags.setEnPassantSquare(Optional.empty());
-        }
-
-        // Castling
-        if (piece.getType() == Piece.PieceType.KING) {
-            flags.forbidCastling(piece.getColour());
-        }
-
-        if (piece.getType() == Piece.PieceType.ROOK) {
-            if (from.equals(new Coordinates(0, 0))) {
-                flags.setBlackQueensideCastle(false);
-            } else if (from.equals(new Coordinates(0, 7))) {
-                flags.setBlackKingsideCastle(false);
-            } else if (from.equals(new Coordinates(7, 0))) {
-                flags.setWhiteQueensideCastle(false);
-            } else if (from.equals(new Coordinates(7, 7))) {
-                flags.setWhiteKingsideCastle(false);
-            }
+            flags.setEnPassantSquareIndex(Flags.NO_SQUARE);
         }
 
-        // Pawn promotion
-        if (piece.getType() == Piece.PieceType.PAWN && (to.getRow() == 0 || to.getRow() == 7)) {
-            flags.setPawnPromotionSquare(Optional.of(to));
-        }
+        // Castling - lost when the king or a rook leaves its home square, or a rook is captured on it
+        flags.setCastlingRights(flags.getCastlingRights() & CASTLING_RIGHTS_KEPT[from] & CASTLING_RIGHTS_KEPT[to]);
 
         // Next player
         gameInfo.switchPlayer();
+    }
 
-        // Game over
-        if (hasNoLegalMoves()) {
-            gameInfo.setResult(isInCheck() ? winResult() : Result.DRAW);
+    // Called after the player has switched, so a full move ends when white is to move again
+    private void updateClocks(int move, int piece) {
+        boolean irreversible = PackedMove.isCapture(move) || Pieces.typeOf(piece) == Piece.PieceType.PAWN.ordinal();
+        gameInfo.setHalfmoveClock(irreversible ? 0 : gameInfo.getHalfmoveClock() + 1);
+        if (gameInfo.getNextPlayer() == PlayerColour.WHITE) {
+            gameInfo.setFullmoveNumber(gameInfo.getFullmoveNumber() + 1);
         }
     }
 
@@ -150,53 +310,40 @@ public class Game {
     }
 
     private boolean isInCheck() {
-        Coordinates kingPosition = board.findKingOfColour(gameInfo.getNextPlayer());
-        return kingPosition != null && squareIsThreatenedByColour(kingPosition, gameInfo.getNextPlayer().opponent());
+        return MoveGenerator.isInCheck(this);
     }
 
     private boolean hasNoLegalMoves() {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (!getAllowedMoves(new Coordinates(i, j)).isEmpty()) {
-                    return false;
-                }
-            }
+        MoveList legalMoves = new MoveList();
+        generateLegalMoves(legalMoves);
+        return legalMoves.isEmpty();
+    }
+
+    private void checkForEnPassantCapture(int move, int capturedSquare) {
+        if ((PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0) {
+            board.removePiece(capturedSquare);
         }
-        return true;
     }
 
-    private void checkForEnPassantCapture(Piece piece, Coordinates to) {
-        if (piece.getType() == Piece.PieceType.PAWN) {
-            if (flags.getEnPassantSquare().map(to::equals).orElse(false)) {
-                int offset = piece.getColour() == PlayerColour.WHITE ? 1 : -1;
-                board.obliterate(flags.getEnPassantSquare().get().plus(offset, 0));
-            }
+    private void checkForPromotion(int move, int piece) {
+        Piece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            int to = PackedMove.to(move);
+            board.removePiece(to);
+            board.placePiece(to, Pieces.code(Pieces.fromCode(piece).getColour(), promotion));
         }
     }
 
-    private void checkForCastling(Piece piece, Coordinates from, Coordinates to) {
-        if (piece.getType() == Piece.PieceType.KING && Math.abs(from.getCol() - to.getCol()) == 2) {
-            int skippedCol = from.getCol() > to.getCol() ? from.getCol() - 1 : from.getCol() + 1;
-            int rookCol = from.getCol() > to.getCol() ? 0 : 7;
-            board.move(new Coordinates(from.getRow(), rookCol), new Coordinates(from.getRow(), skippedCol));
+    private void checkForCastling(int move, int from, int to) {
+        if ((PackedMove.flags(move) & PackedMove.CASTLING) != 0) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = to > from ? from + 1 : from - 1;
+            board.movePiece(rookFrom, rookTo);
         }
     }
 
     public boolean squareIsThreatenedByColour(Coordinates square, PlayerColour colour) {
-        // We don't care about special moves for detecting threats, as they add no additional threats, and
-        // this prevents us infinitely recursing when we check if castling is allowed.
-        Game dummyGame = new Game(board, flags.withNoSpecialMoves());
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                Piece piece = pieceAt(i, j);
-                if (piece != null && piece.getColour() == colour) {
-                    if (piece.getAllowedMoves(new Coordinates(i, j), dummyGame).stream().map(Move::getTo).anyMatch(square::equals)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return board.isSquareAttackedBy(square.toSquare(), colour);
     }
 
     public boolean isEnded() {
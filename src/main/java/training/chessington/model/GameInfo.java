@@ -7,6 +7,10 @@ public class GameInfo {
     private Result result;
     private PlayerColour nextPlayer;
 
+    // Moves since the last capture or pawn move, and the number of the move white is to play next or has just played
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
     public static GameInfo forNewGame() {
         GameInfo gameInfo = new GameInfo();
         gameInfo.result = Result.IN_PROGRESS;
@@ -37,4 +41,20 @@ public class GameInfo {
     public void switchPlayer() {
         this.nextPlayer = nextPlayer.opponent();
     }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
 }
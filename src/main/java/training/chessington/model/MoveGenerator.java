@@ -0,0 +1,226 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+
+public final class MoveGenerator {
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long LAST_ROWS = 0xFFL | (0xFFL << 56);
+
+    private MoveGenerator() {
+    }
+
+    public static long checkers(Game game) {
+        Board board = game.getBoard();
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        int king = board.findKingSquare(us);
+        return king < 0 ? 0 : board.attackersTo(king, us.opponent(), board.getOccupancy());
+    }
+
+    public static boolean isInCheck(Game game) {
+        Board board = game.getBoard();
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        int king = board.findKingSquare(us);
+        return king >= 0 && board.isSquareAttackedBy(king, us.opponent());
+    }
+
+    public static void generateLegalMoves(Game game, MoveList moves) {
+        generate(game, moves, false);
+    }
+
+    // Captures (including en passant) and promotions only, for searches that resolve exchanges
+    public static void generateLegalCaptures(Game game, MoveList moves) {
+        generate(game, moves, true);
+    }
+
+    private static void generate(Game game, MoveList moves, boolean capturesOnly) {
+        Board board = game.getBoard();
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        PlayerColour them = us.opponent();
+        long own = board.getOccupancy(us);
+        long occupancy = board.getOccupancy();
+
+        // Hand-built positions may have no king, in which case there is nothing to keep out of check
+        int king = board.findKingSquare(us);
+        long checkers = 0;
+        long pinned = 0;
+        if (king >= 0) {
+            checkers = board.attackersTo(king, them, occupancy);
+            pinned = pinnedPieces(board, king, us, occupancy);
+            addKingMoves(board, king, them, capturesOnly, moves);
+            if (Long.bitCount(checkers) > 1) {
+                return;
+            }
+        }
+
+        // When in check, every other piece must capture the checker or block its ray
+        long targets = checkers == 0 ? ~own : Attacks.between(king, Long.numberOfTrailingZeros(checkers)) | checkers;
+        long pushTargets = capturesOnly ? targets & LAST_ROWS : targets;
+        if (capturesOnly) {
+            targets &= board.getOccupancy(them);
+        }
+
+        addPawnMoves(game, us, king, pinned, targets, pushTargets, moves);
+
+        for (long knights = board.getPieces(us, Piece.PieceType.KNIGHT) & ~pinned; knights != 0; knights &= knights - 1) {
+            int from = Long.numberOfTrailingZeros(knights);
+            addMoves(board, them, from, Attacks.knightAttacks(from) & targets, moves);
+        }
+
+        long queens = board.getPieces(us, Piece.PieceType.QUEEN);
+        for (long bishops = board.getPieces(us, Piece.PieceType.BISHOP) | queens; bishops != 0; bishops &= bishops - 1) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            addMoves(board, them, from, pinRestricted(Attacks.bishopAttacks(from, occupancy) & targets, king, from, pinned), moves);
+        }
+
+        for (long rooks = board.getPieces(us, Piece.PieceType.ROOK) | queens; rooks != 0; rooks &= rooks - 1) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            addMoves(board, them, from, pinRestricted(Attacks.rookAttacks(from, occupancy) & targets, king, from, pinned), moves);
+        }
+
+        if (king >= 0 && checkers == 0 && !capturesOnly) {
+            addCastlingMoves(game, us, king, moves);
+        }
+    }
+
+    private static long pinnedPieces(Board board, int king, PlayerColour us, long occupancy) {
+        PlayerColour them = us.opponent();
+        long queens = board.getPieces(them, Piece.PieceType.QUEEN);
+        long snipers = (Attacks.rookAttacks(king, 0) & (board.getPieces(them, Piece.PieceType.ROOK) | queens))
+                | (Attacks.bishopAttacks(king, 0) & (board.getPieces(them, Piece.PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & board.getOccupancy(us);
+            }
+        }
+        return pinned;
+    }
+
+    private static long pinRestricted(long destinations, int king, int from, long pinned) {
+        return (pinned & (1L << from)) == 0 ? destinations : destinations & Attacks.line(king, from);
+    }
+
+    private static void addKingMoves(Board board, int king, PlayerColour them, boolean capturesOnly, MoveList moves) {
+        // The king is lifted off the board so that it cannot hide behind itself from a slider
+        long occupancy = board.getOccupancy() ^ (1L << king);
+        long destinations = Attacks.kingAttacks(king) & (capturesOnly ? board.getOccupancy(them) : ~board.getOccupancy(them.opponent()));
+        for (; destinations != 0; destinations &= destinations - 1) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            if (!board.isSquareAttackedBy(to, them, occupancy)) {
+                moves.add(PackedMove.of(king, to, (board.getOccupancy(them) & (1L << to)) != 0 ? PackedMove.CAPTURE : 0));
+            }
+        }
+    }
+
+    private static void addCastlingMoves(Game game, PlayerColour us, int king, MoveList moves) {
+        Board board = game.getBoard();
+        Flags flags = game.getFlags();
+        int homeRow = us == PlayerColour.WHITE ? Game.SIZE - 1 : 0;
+        if (king != homeRow * Game.SIZE + 4) {
+            return;
+        }
+
+        if (flags.isKingsideCastle(us) && canCastle(board, us, king, king + 3, king + 1, king + 2)) {
+            moves.add(PackedMove.of(king, king + 2, PackedMove.CASTLING));
+        }
+        if (flags.isQueensideCastle(us) && canCastle(board, us, king, king - 4, king - 1, king - 2)) {
+            moves.add(PackedMove.of(king, king - 2, PackedMove.CASTLING));
+        }
+    }
+
+    private static boolean canCastle(Board board, PlayerColour us, int king, int rook, int kingPassesThrough, int kingLandsOn) {
+        return (board.getPieces(us, Piece.PieceType.ROOK) & (1L << rook)) != 0
+                && (Attacks.between(king, rook) & board.getOccupancy()) == 0
+                && !board.isSquareAttackedBy(kingPassesThrough, us.opponent())
+                && !board.isSquareAttackedBy(kingLandsOn, us.opponent());
+    }
+
+    private static void addPawnMoves(Game game, PlayerColour us, int king, long pinned, long targets, long pushTargets, MoveList moves) {
+        Board board = game.getBoard();
+        PlayerColour them = us.opponent();
+        long pawns = board.getPieces(us, Piece.PieceType.PAWN);
+        long empty = ~board.getOccupancy();
+        long enemies = board.getOccupancy(them);
+        boolean white = us == PlayerColour.WHITE;
+        int forward = white ? -Game.SIZE : Game.SIZE;
+
+        long singlePushes = (white ? pawns >>> 8 : pawns << 8) & empty;
+        long doublePushRow = white ? 0xFFL << 40 : 0xFFL << 16;
+        long doublePushes = (white ? (singlePushes & doublePushRow) >>> 8 : (singlePushes & doublePushRow) << 8) & empty & pushTargets;
+        singlePushes &= pushTargets;
+
+        for (; singlePushes != 0; singlePushes &= singlePushes - 1) {
+            int to = Long.numberOfTrailingZeros(singlePushes);
+            addPawnMove(to - forward, to, 0, king, pinned, moves);
+        }
+        for (; doublePushes != 0; doublePushes &= doublePushes - 1) {
+            int to = Long.numberOfTrailingZeros(doublePushes);
+            int from = to - 2 * forward;
+            if (isPinAllowed(from, to, king, pinned)) {
+                moves.add(PackedMove.of(from, to, PackedMove.DOUBLE_PAWN_PUSH));
+            }
+        }
+
+        // Captures towards column 0, then towards column 7
+        long leftCaptures = (white ? (pawns & ~FILE_A) >>> 9 : (pawns & ~FILE_A) << 7) & enemies & targets;
+        for (; leftCaptures != 0; leftCaptures &= leftCaptures - 1) {
+            int to = Long.numberOfTrailingZeros(leftCaptures);
+            addPawnMove(white ? to + 9 : to - 7, to, PackedMove.CAPTURE, king, pinned, moves);
+        }
+        long rightCaptures = (white ? (pawns & ~FILE_H) >>> 7 : (pawns & ~FILE_H) << 9) & enemies & targets;
+        for (; rightCaptures != 0; rightCaptures &= rightCaptures - 1) {
+            int to = Long.numberOfTrailingZeros(rightCaptures);
+            addPawnMove(white ? to + 7 : to - 9, to, PackedMove.CAPTURE, king, pinned, moves);
+        }
+
+        int enPassantSquare = game.getFlags().getEnPassantSquareIndex();
+        if (enPassantSquare != Flags.NO_SQUARE) {
+            for (long attackers = Attacks.pawnAttacks(them, enPassantSquare) & pawns; attackers != 0; attackers &= attackers - 1) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                if (enPassantIsLegal(board, us, king, from, enPassantSquare)) {
+                    moves.add(PackedMove.of(from, enPassantSquare, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+                }
+            }
+        }
+    }
+
+    private static boolean enPassantIsLegal(Board board, PlayerColour us, int king, int from, int to) {
+        if (king < 0) {
+            return true;
+        }
+        // Two pawns leave the same row at once, so replay the capture on the occupancy and look for any attacker
+        long capturedPawn = 1L << ((from / Game.SIZE) * Game.SIZE + to % Game.SIZE);
+        long occupancy = (board.getOccupancy() ^ (1L << from) ^ capturedPawn) | (1L << to);
+        return (board.attackersTo(king, us.opponent(), occupancy) & ~capturedPawn) == 0;
+    }
+
+    private static void addPawnMove(int from, int to, int flags, int king, long pinned, MoveList moves) {
+        if (!isPinAllowed(from, to, king, pinned)) {
+            return;
+        }
+        if ((LAST_ROWS & (1L << to)) != 0) {
+            moves.add(PackedMove.of(from, to, flags, Piece.PieceType.QUEEN));
+            moves.add(PackedMove.of(from, to, flags, Piece.PieceType.ROOK));
+            moves.add(PackedMove.of(from, to, flags, Piece.PieceType.BISHOP));
+            moves.add(PackedMove.of(from, to, flags, Piece.PieceType.KNIGHT));
+        } else {
+            moves.add(PackedMove.of(from, to, flags));
+        }
+    }
+
+    private static boolean isPinAllowed(int from, int to, int king, long pinned) {
+        return (pinned & (1L << from)) == 0 || (Attacks.line(king, from) & (1L << to)) != 0;
+    }
+
+    private static void addMoves(Board board, PlayerColour them, int from, long destinations, MoveList moves) {
+        long enemies = board.getOccupancy(them);
+        for (; destinations != 0; destinations &= destinations - 1) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            moves.add(PackedMove.of(from, to, (enemies & (1L << to)) != 0 ? PackedMove.CAPTURE : 0));
+        }
+    }
+}
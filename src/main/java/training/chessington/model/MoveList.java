@@ -0,0 +1,73 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class MoveList {
+
+    // No legal chess position has more than 218 moves, so this only grows for unusual pseudo-legal setups.
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Move> toMoves() {
+        // Move has no promotion piece (that is chosen afterwards via Game.promotePiece), so
+        // each promotion appears once, represented by its queen promotion.
+        List<Move> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Piece.PieceType promotion = PackedMove.promotion(moves[i]);
+            if (promotion == null || promotion == Piece.PieceType.QUEEN) {
+                result.add(PackedMove.toMove(moves[i]));
+            }
+        }
+        return result;
+    }
+}
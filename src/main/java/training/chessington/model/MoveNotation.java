@@ -0,0 +1,357 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Pieces;
+
+// Reads and writes moves in standard algebraic notation (SAN, as used in PGN) and in the long algebraic
+// notation of UCI. Instead of generating every legal move, candidate pieces are found by looking outwards
+// from the target square with the attack tables, and a candidate is only played on the board to check
+// that it does not leave its own king in check. Instances keep scratch state, so use one per thread.
+public final class MoveNotation {
+
+    // Returned by the parse methods when more than one legal move fits the text
+    public static final int AMBIGUOUS = -1;
+
+    // Indexed by PieceType ordinal; a pawn has no letter in SAN
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final Piece.PieceType[] TYPES = Piece.PieceType.values();
+    private static final String UCI_PROMOTION_LETTERS = "pnbrqk";
+    private static final int MAX_TEXT_LENGTH = 16;
+    private static final long LAST_ROWS = 0xFFL | (0xFFL << 56);
+
+    private final MoveList moves = new MoveList();
+    private final byte[] text = new byte[MAX_TEXT_LENGTH];
+
+    public static String toUci(int move) {
+        StringBuilder builder = new StringBuilder(5);
+        appendUci(builder, move);
+        return builder.toString();
+    }
+
+    public static void appendUci(StringBuilder builder, int move) {
+        if (move == PackedMove.NONE) {
+            builder.append("0000");
+            return;
+        }
+        appendSquare(builder, PackedMove.from(move));
+        appendSquare(builder, PackedMove.to(move));
+        Piece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            builder.append(UCI_PROMOTION_LETTERS.charAt(promotion.ordinal()));
+        }
+    }
+
+    // The square named e.g. "e4"
+    public static int parseSquare(CharSequence name) {
+        int square = name.length() == 2 ? square(name.charAt(0), name.charAt(1)) : -1;
+        if (square < 0) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return square;
+    }
+
+    // The legal move written as e.g. "e2e4" or "a7a8q", or PackedMove.NONE
+    public int parseUci(Game game, CharSequence uci) {
+        int length = uci.length();
+        if (length != 4 && length != 5) {
+            return PackedMove.NONE;
+        }
+        int from = square(uci.charAt(0), uci.charAt(1));
+        int to = square(uci.charAt(2), uci.charAt(3));
+        int promotion = length == 5 ? UCI_PROMOTION_LETTERS.indexOf(uci.charAt(4)) : 0;
+        if (from < 0 || to < 0 || promotion < 0) {
+            return PackedMove.NONE;
+        }
+        return legalMove(game, from, to, promotion);
+    }
+
+    public String toSan(Game game, int move) {
+        StringBuilder builder = new StringBuilder(8);
+        appendSan(builder, game, move);
+        return builder.toString();
+    }
+
+    // The move must be legal in the game, which is left as it was
+    public void appendSan(StringBuilder builder, Game game, int move) {
+        Board board = game.getBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int type = Pieces.typeOf(board.pieceAt(from));
+
+        if ((PackedMove.flags(move) & PackedMove.CASTLING) != 0) {
+            builder.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == Piece.PieceType.PAWN.ordinal()) {
+            if (PackedMove.isCapture(move)) {
+                builder.append((char) ('a' + from % Game.SIZE)).append('x');
+            }
+            appendSquare(builder, to);
+            Piece.PieceType promotion = PackedMove.promotion(move);
+            if (promotion != null) {
+                builder.append('=').append(PIECE_LETTERS.charAt(promotion.ordinal()));
+            }
+        } else {
+            builder.append(PIECE_LETTERS.charAt(type));
+            appendDisambiguation(builder, game, type, from, to);
+            if (PackedMove.isCapture(move)) {
+                builder.append('x');
+            }
+            appendSquare(builder, to);
+        }
+
+        // Only a move that gives check needs the legal replies, to tell check from mate
+        game.makeMove(move);
+        if (MoveGenerator.isInCheck(game)) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            builder.append(moves.isEmpty() ? '#' : '+');
+        }
+        game.unmakeMove();
+    }
+
+    // The legal move written in SAN, PackedMove.NONE, or AMBIGUOUS
+    public int parseSan(Game game, CharSequence san) {
+        int length = san.length();
+        if (length > MAX_TEXT_LENGTH) {
+            return PackedMove.NONE;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = san.charAt(i);
+            if (c > 0x7F) {
+                return PackedMove.NONE;
+            }
+            text[i] = (byte) c;
+        }
+        return parseSan(game, text, 0, length);
+    }
+
+    // As parseSan, straight from the ASCII bytes in san[start, end)
+    public int parseSan(Game game, byte[] san, int start, int end) {
+        while (end > start && (san[end - 1] == '+' || san[end - 1] == '#' || san[end - 1] == '!' || san[end - 1] == '?')) {
+            end--;
+        }
+        if (isCastling(san, start, end)) {
+            return castlingMove(game, end - start == 3);
+        }
+
+        int type = Piece.PieceType.PAWN.ordinal();
+        if (end > start && san[start] >= 'B' && san[start] <= 'R') {
+            type = PIECE_LETTERS.indexOf(san[start]);
+            start++;
+            if (type <= 0) {
+                return PackedMove.NONE;
+            }
+        }
+
+        // Promotion, written "e8=Q" or sometimes "e8Q"
+        int promotion = 0;
+        if (end - start >= 2 && san[end - 2] == '=') {
+            promotion = PIECE_LETTERS.indexOf(san[end - 1]);
+            end -= 2;
+        } else if (end > start && type == Piece.PieceType.PAWN.ordinal() && san[end - 1] >= 'B' && san[end - 1] <= 'R') {
+            promotion = PIECE_LETTERS.indexOf(san[end - 1]);
+            end--;
+        }
+        if (promotion < 0 || end - start < 2) {
+            return PackedMove.NONE;
+        }
+        int to = square(san[end - 2], san[end - 1]);
+        if (to < 0) {
+            return PackedMove.NONE;
+        }
+
+        // Whatever sits between the piece letter and the target square: a capture mark and the from file and/or rank
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            byte c = san[i];
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != ':' && c != '-') {
+                return PackedMove.NONE;
+            }
+        }
+
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        long candidates = type == Piece.PieceType.PAWN.ordinal()
+                ? pawnCandidates(game.getBoard(), us, to)
+                : candidates(game.getBoard(), us, type, to);
+        int found = PackedMove.NONE;
+        for (; candidates != 0; candidates &= candidates - 1) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            if ((fromCol >= 0 && from % Game.SIZE != fromCol) || (fromRow >= 0 && from / Game.SIZE != fromRow)) {
+                continue;
+            }
+            int move = legalMove(game, from, to, promotion);
+            if (move == PackedMove.NONE) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                return AMBIGUOUS;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    // File if that tells the pieces apart, else rank, else both, counting only pieces that can legally move there
+    private void appendDisambiguation(StringBuilder builder, Game game, int type, int from, int to) {
+        long others = candidates(game.getBoard(), game.getGameInfo().getNextPlayer(), type, to) & ~(1L << from);
+        long rivals = 0;
+        for (; others != 0; others &= others - 1) {
+            int other = Long.numberOfTrailingZeros(others);
+            if (legalMove(game, other, to, 0) != PackedMove.NONE) {
+                rivals |= 1L << other;
+            }
+        }
+        if (rivals == 0) {
+            return;
+        }
+        boolean sameFile = false;
+        boolean sameRow = false;
+        for (; rivals != 0; rivals &= rivals - 1) {
+            int rival = Long.numberOfTrailingZeros(rivals);
+            sameFile |= rival % Game.SIZE == from % Game.SIZE;
+            sameRow |= rival / Game.SIZE == from / Game.SIZE;
+        }
+        if (!sameFile || sameRow) {
+            builder.append((char) ('a' + from % Game.SIZE));
+        }
+        if (sameFile) {
+            builder.append((char) ('8' - from / Game.SIZE));
+        }
+    }
+
+    // Our pieces of the given type that attack the target square, found from the target outwards
+    private static long candidates(Board board, PlayerColour us, int type, int to) {
+        long pieces = board.getPieces(us.ordinal() * Pieces.TYPE_COUNT + type);
+        long occupancy = board.getOccupancy();
+        switch (TYPES[type]) {
+            case KNIGHT: return Attacks.knightAttacks(to) & pieces;
+            case BISHOP: return Attacks.bishopAttacks(to, occupancy) & pieces;
+            case ROOK: return Attacks.rookAttacks(to, occupancy) & pieces;
+            case QUEEN: return Attacks.queenAttacks(to, occupancy) & pieces;
+            case KING: return Attacks.kingAttacks(to) & pieces;
+            default: return 0;
+        }
+    }
+
+    // Pawns that could capture on, or be pushed to, the target square
+    private static long pawnCandidates(Board board, PlayerColour us, int to) {
+        long pawns = board.getPieces(us, Piece.PieceType.PAWN);
+        int behind = us == PlayerColour.WHITE ? Game.SIZE : -Game.SIZE;
+        int oneBack = to + behind;
+        int twoBack = to + 2 * behind;
+        long candidates = Attacks.pawnAttacks(us.opponent(), to) & pawns;
+        if (oneBack >= 0 && oneBack < Game.SIZE * Game.SIZE) {
+            candidates |= pawns & (1L << oneBack);
+            if (board.pieceAt(oneBack) == Pieces.NONE && twoBack >= 0 && twoBack < Game.SIZE * Game.SIZE) {
+                candidates |= pawns & (1L << twoBack);
+            }
+        }
+        return candidates;
+    }
+
+    // Builds the move from one square to another with the flags the move generator would give it,
+    // returning it only if it is legal
+    private int legalMove(Game game, int from, int to, int promotion) {
+        Board board = game.getBoard();
+        PlayerColour us = game.getGameInfo().getNextPlayer();
+        int piece = board.pieceAt(from);
+        int target = board.pieceAt(to);
+        if (piece == Pieces.NONE || Pieces.colourOf(piece) != us.ordinal() || (target != Pieces.NONE && Pieces.colourOf(target) == us.ordinal())) {
+            return PackedMove.NONE;
+        }
+
+        int type = Pieces.typeOf(piece);
+        long occupancy = board.getOccupancy();
+        long toBit = 1L << to;
+        int flags = target == Pieces.NONE ? 0 : PackedMove.CAPTURE;
+        long reachable;
+        switch (TYPES[type]) {
+            case PAWN:
+                int forward = us == PlayerColour.WHITE ? -Game.SIZE : Game.SIZE;
+                if ((Attacks.pawnAttacks(us, from) & toBit) != 0) {
+                    if (target == Pieces.NONE && to == game.getFlags().getEnPassantSquareIndex()) {
+                        flags = PackedMove.CAPTURE | PackedMove.EN_PASSANT;
+                    } else if (target == Pieces.NONE) {
+                        return PackedMove.NONE;
+                    }
+                } else if (target != Pieces.NONE) {
+                    return PackedMove.NONE;
+                } else if (to - from == 2 * forward && board.pieceAt(from + forward) == Pieces.NONE
+                        && from / Game.SIZE == (us == PlayerColour.WHITE ? 6 : 1)) {
+                    flags = PackedMove.DOUBLE_PAWN_PUSH;
+                } else if (to - from != forward) {
+                    return PackedMove.NONE;
+                }
+                reachable = toBit;
+                break;
+            case KNIGHT: reachable = Attacks.knightAttacks(from); break;
+            case BISHOP: reachable = Attacks.bishopAttacks(from, occupancy); break;
+            case ROOK: reachable = Attacks.rookAttacks(from, occupancy); break;
+            case QUEEN: reachable = Attacks.queenAttacks(from, occupancy); break;
+            default:
+                if (Math.abs(to - from) == 2 && from / Game.SIZE == to / Game.SIZE) {
+                    return castlingMove(game, to > from);
+                }
+                reachable = Attacks.kingAttacks(from);
+                break;
+        }
+        if ((reachable & toBit) == 0) {
+            return PackedMove.NONE;
+        }
+
+        // A pawn reaching the last row must name its promotion piece, and nothing else may
+        boolean promotes = type == Piece.PieceType.PAWN.ordinal() && (LAST_ROWS & toBit) != 0;
+        if (promotes != (promotion != 0) || promotion == Piece.PieceType.KING.ordinal()) {
+            return PackedMove.NONE;
+        }
+        int move = promotes ? PackedMove.of(from, to, flags, TYPES[promotion]) : PackedMove.of(from, to, flags);
+
+        game.makeMove(move);
+        int king = board.findKingSquare(us);
+        boolean legal = king < 0 || !board.isSquareAttackedBy(king, us.opponent());
+        game.unmakeMove();
+        return legal ? move : PackedMove.NONE;
+    }
+
+    // Castling has too many conditions to rebuild here, so it is looked up among the legal moves
+    private int castlingMove(Game game, boolean kingside) {
+        moves.clear();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if ((PackedMove.flags(move) & PackedMove.CASTLING) != 0 && PackedMove.to(move) > PackedMove.from(move) == kingside) {
+                return move;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    // "O-O" or "O-O-O", also accepted with zeros
+    private static boolean isCastling(byte[] san, int start, int end) {
+        int length = end - start;
+        if (length != 3 && length != 5) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            byte expected = (i - start) % 2 == 0 ? san[start] : (byte) '-';
+            if (san[i] != expected) {
+                return false;
+            }
+        }
+        return san[start] == 'O' || san[start] == '0';
+    }
+
+    private static int square(int file, int rank) {
+        int col = file - 'a';
+        int row = '8' - rank;
+        return col < 0 || col >= Game.SIZE || row < 0 || row >= Game.SIZE ? -1 : row * Game.SIZE + col;
+    }
+
+    private static void appendSquare(StringBuilder builder, int square) {
+        builder.append((char) ('a' + square % Game.SIZE)).append((char) ('8' - square / Game.SIZE));
+    }
+}
@@ -0,0 +1,60 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+
+public final class PackedMove {
+
+    // Layout: bits 0-5 from square, 6-11 to square, 12-15 flags, 16-18 promotion piece type (0 for none).
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PAWN_PUSH = 2;
+    public static final int EN_PASSANT = 4;
+    public static final int CASTLING = 8;
+
+    private static final Piece.PieceType[] TYPES = Piece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int of(int from, int to, int flags, Piece.PieceType promotion) {
+        return of(from, to, flags) | (promotion.ordinal() << 16);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & (CAPTURE << 12)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move >>> 16) != 0;
+    }
+
+    public static Piece.PieceType promotion(int move) {
+        int type = move >>> 16;
+        return type == 0 ? null : TYPES[type];
+    }
+
+    public static int withoutPromotion(int move) {
+        return move & 0xFFFF;
+    }
+
+    public static Move toMove(int move) {
+        return new Move(Coordinates.fromSquare(from(move)), Coordinates.fromSquare(to(move)));
+    }
+}
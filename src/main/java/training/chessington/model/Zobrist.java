@@ -0,0 +1,78 @@
+package training.chessington.model;
+
+import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Pieces;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[Pieces.COUNT][Game.SIZE * Game.SIZE];
+    private static final long[] CASTLING = new long[Flags.ALL_CASTLING + 1];
+    private static final long[] EN_PASSANT_COL = new long[Game.SIZE];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        // A fixed seed keeps hashes stable between runs, so they can be logged and compared
+        SplittableRandom random = new SplittableRandom(0x43686573736E67L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < squares.length; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        for (int col = 0; col < Game.SIZE; col++) {
+            EN_PASSANT_COL[col] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+
+        // Each castling right gets its own key, and a set of rights hashes to the XOR of its members
+        long[] rightKeys = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int rights = 0; rights < CASTLING.length; rights++) {
+            for (int bit = 0; bit < rightKeys.length; bit++) {
+                if ((rights & (1 << bit)) != 0) {
+                    CASTLING[rights] ^= rightKeys[bit];
+                }
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceSquare(int code, int square) {
+        return PIECE_SQUARE[code][square];
+    }
+
+    public static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    public static long enPassant(int square) {
+        return square == Flags.NO_SQUARE ? 0 : EN_PASSANT_COL[square % Game.SIZE];
+    }
+
+    public static long sideToMove(PlayerColour colour) {
+        return colour == PlayerColour.BLACK ? BLACK_TO_MOVE : 0;
+    }
+
+    public static long hash(Board board, Flags flags, PlayerColour nextPlayer) {
+        long hash = castling(flags.getCastlingRights()) ^ enPassant(flags.getEnPassantSquareIndex()) ^ sideToMove(nextPlayer);
+        for (int code = 0; code < Pieces.COUNT; code++) {
+            for (long pieces = board.getPieces(code); pieces != 0; pieces &= pieces - 1) {
+                hash ^= PIECE_SQUARE[code][Long.numberOfTrailingZeros(pieces)];
+            }
+        }
+        return hash;
+    }
+
+    public static long pawnHash(Board board) {
+        long hash = 0;
+        for (PlayerColour colour : PlayerColour.values()) {
+            int code = Pieces.code(colour, Piece.PieceType.PAWN);
+            for (long pawns = board.getPieces(code); pawns != 0; pawns &= pawns - 1) {
+                hash ^= PIECE_SQUARE[code][Long.numberOfTrailingZeros(pawns)];
+            }
+        }
+        return hash;
+    }
+}
@@ -1,17 +1,15 @@
 package training.chessington.model.pieces;
 
+import training.chessington.model.Attacks;
 import training.chessington.model.Board;
 import training.chessington.model.Coordinates;
 import training.chessington.model.Game;
 import training.chessington.model.Move;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
 import training.chessington.model.PlayerColour;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 public abstract class AbstractPiece implements Piece {
 
@@ -38,54 +36,30 @@ public abstract class AbstractPiece implements Piece {
         return colour.toString() + " " + type.toString();
     }
 
-    protected boolean isValidDestination(Board board, Coordinates coords) {
-        return board.squareIsEmpty(coords) || !board.squareContainsPieceOfColour(coords, colour);
+    @Override
+    public List<Move> getAllowedMoves(Coordinates from, Game game) {
+        MoveList moves = new MoveList();
+        generateMoves(from.toSquare(), game, moves);
+        return moves.toMoves();
     }
 
-    protected boolean containsEnemy(Board board, Coordinates coords) {
-        return !board.squareIsEmpty(coords) && !board.squareContainsPieceOfColour(coords, colour);
+    protected void addOrthogonalMoves(Board board, int from, MoveList moves) {
+        addMoves(board, from, Attacks.rookAttacks(from, board.getOccupancy()), moves);
     }
 
-    private List<Move> longRangeMovesInDirection(Board board, Coordinates start, int rowDelta, int colDelta) {
-        List<Move> allowedMoves = new ArrayList<>();
-        for (int i = 1; i < Game.SIZE; i++) {
-            Move candidateMove = new Move(start, start.plus(rowDelta * i, colDelta * i));
-            if (!board.inBounds(candidateMove.getTo())) {
-                break;
-            }
-            if (isValidDestination(board, candidateMove.getTo())) {
-                allowedMoves.add(new Move(start, candidateMove.getTo()));
-            }
-            if (!board.squareIsEmpty(candidateMove.getTo())) {
-                break;
-            }
-        }
-        return allowedMoves;
+    protected void addDiagonalMoves(Board board, int from, MoveList moves) {
+        addMoves(board, from, Attacks.bishopAttacks(from, board.getOccupancy()), moves);
     }
 
-    protected List<Move> getOrthogonalMoves(Board board, Coordinates start) {
-        return new ArrayList<Move>(){{
-            addAll(longRangeMovesInDirection(board, start, 1, 0));
-            addAll(longRangeMovesInDirection(board, start, 0, 1));
-            addAll(longRangeMovesInDirection(board, start, -1, 0));
-            addAll(longRangeMovesInDirection(board, start, 0, -1));
-        }};
+    protected void addOrthogonalAndDiagonalMoves(Board board, int from, MoveList moves) {
+        addMoves(board, from, Attacks.queenAttacks(from, board.getOccupancy()), moves);
     }
 
-    protected List<Move> getDiagonalMoves(Board board, Coordinates start) {
-        return new ArrayList<Move>(){{
-            addAll(longRangeMovesInDirection(board, start, 1, 1));
-            addAll(longRangeMovesInDirection(board, start, 1, -1));
-            addAll(longRangeMovesInDirection(board, start, -1, 1));
-            addAll(longRangeMovesInDirection(board, start, -1, -1));
-        }};
-    }
-
-    protected List<Move> createValidMoves(Game game, Coordinates from, Coordinates ...toCoords) {
-        return Arrays.stream(toCoords)
-                .filter(game.getBoard()::inBounds)
-                .filter(to -> !game.getBoard().squareContainsPieceOfColour(to, colour))
-                .map(to -> new Move(from, to))
-                .collect(Collectors.toList());
+    protected void addMoves(Board board, int from, long destinations, MoveList moves) {
+        long enemies = board.getOccupancy(colour.opponent());
+        for (destinations &= ~board.getOccupancy(colour); destinations != 0; destinations &= destinations - 1) {
+            int to = Long.numberOfTrailingZeros(destinations);
+            moves.add(PackedMove.of(from, to, (enemies & (1L << to)) != 0 ? PackedMove.CAPTURE : 0));
+        }
     }
 }
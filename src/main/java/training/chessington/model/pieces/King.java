@@ -1,54 +1,58 @@
 package training.chessington.model.pieces;
 
-import training.chessington.model.Coordinates;
+import training.chessington.model.Attacks;
 import training.chessington.model.Game;
-import training.chessington.model.Move;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
 import training.chessington.model.PlayerColour;
 
-import java.util.List;
-
 public class King extends AbstractPiece {
     public King(PlayerColour colour) {
         super(PieceType.KING, colour);
     }
 
     @Override
-    public List<Move> getAllowedMoves(Coordinates from, Game game) {
-        List<Move> moves = createValidMoves(game, from,
-                from.plus(-1, -1), from.plus(-1, 0), from.plus(-1, 1),
-                from.plus(0, -1), from.plus(0, 1),
-                from.plus(1, -1), from.plus(1, 0), from.plus(1, 1)
-        );
+    public void generateMoves(int from, Game game, MoveList moves) {
+        addMoves(game.getBoard(), from, Attacks.kingAttacks(from), moves);
+
+        if (from != homeSquare()) {
+            return;
+        }
 
         if (canCastleKingside(game)) {
-            moves.add(new Move(from, from.plus(0, 2)));
+            moves.add(PackedMove.of(from, from + 2, PackedMove.CASTLING));
         }
 
         if (canCastleQueenside(game)) {
-            moves.add(new Move(from, from.plus(0, -2)));
+            moves.add(PackedMove.of(from, from - 2, PackedMove.CASTLING));
         }
+    }
+
+    private int homeSquare() {
+        return homeRow() * Game.SIZE + 4;
+    }
 
-        return moves;
+    private int homeRow() {
+        return colour == PlayerColour.WHITE ? 7 : 0;
     }
 
     private boolean canCastleKingside(Game game) {
-        int homeRow = colour == PlayerColour.WHITE ? 7 : 0;
+        int homeRow = homeRow();
         return game.getFlags().isKingsideCastle(colour) &&
                 noSquaresThreatened(game, homeRow, 4, 6) &&
                 noSquaresOccupied(game, homeRow, 5, 6);
     }
 
     private boolean canCastleQueenside(Game game) {
-        int homeRow = colour == PlayerColour.WHITE ? 7 : 0;
+        int homeRow = homeRow();
         return game.getFlags().isQueensideCastle(colour) &&
-                noSquaresThreatened(game, homeRow, 1, 4) &&
+                noSquaresThreatened(game, homeRow, 2, 4) &&
                 noSquaresOccupied(game, homeRow, 1, 3);
     }
 
     private boolean noSquaresThreatened(Game game, int homeRow, int startCol, int endCol) {
         for (int col = startCol; col <= endCol; col++) {
-            Coordinates square = new Coordinates(homeRow, col);
-            if (game.squareIsThreatenedByColour(square, colour.opponent())) {
+            if (game.getBoard().isSquareAttackedBy(homeRow * Game.SIZE + col, colour.opponent())) {
                 return false;
             }
         }
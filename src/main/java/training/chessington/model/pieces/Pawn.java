@@ -1,53 +1,68 @@
 package training.chessington.model.pieces;
 
-import training.chessington.model.Coordinates;
+import training.chessington.model.Board;
 import training.chessington.model.Game;
-import training.chessington.model.Move;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
 import training.chessington.model.PlayerColour;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Stream;
-
 public class Pawn extends AbstractPiece {
     public Pawn(PlayerColour colour) {
         super(Piece.PieceType.PAWN, colour);
     }
 
     @Override
-    public List<Move> getAllowedMoves(Coordinates from, Game game) {
-        List<Move> allowedMoves = new ArrayList<>();
+    public void generateMoves(int from, Game game, MoveList moves) {
+        Board board = game.getBoard();
         int offset = colour == PlayerColour.WHITE ? -1 : 1;
+        int row = from / Game.SIZE;
+        int col = from % Game.SIZE;
+        if (row + offset < 0 || row + offset >= Game.SIZE) {
+            return;
+        }
 
         // Move forward one square
-        Coordinates onceInFront = from.plus(offset, 0);
-        if (game.getBoard().inBounds(onceInFront) && game.getBoard().squareIsEmpty(onceInFront)) {
-            allowedMoves.add(new Move(from, from.plus(offset, 0)));
-        }
+        int onceInFront = from + offset * Game.SIZE;
+        if ((board.getOccupancy() & (1L << onceInFront)) == 0) {
+            addPawnMove(from, onceInFront, 0, moves);
 
-        // Move forward two squares
-        Coordinates twiceInFront = from.plus(2 * offset, 0);
-        if (onStartingSquare(from) && game.getBoard().inBounds(twiceInFront) && game.getBoard().squareIsEmpty(onceInFront) && game.getBoard().squareIsEmpty(twiceInFront)) {
-            allowedMoves.add(new Move(from, from.plus(2 * offset, 0)));
+            // Move forward two squares
+            int twiceInFront = onceInFront + offset * Game.SIZE;
+            if (onStartingRow(row) && (board.getOccupancy() & (1L << twiceInFront)) == 0) {
+                moves.add(PackedMove.of(from, twiceInFront, PackedMove.DOUBLE_PAWN_PUSH));
+            }
         }
 
         // Captures
-        Stream.of(new Move(from, from.plus(offset, 1)), new Move(from, from.plus(offset, -1)))
-                .filter(move -> isValidCapture(game, move))
-                .forEach(allowedMoves::add);
-
-        return allowedMoves;
+        long enemies = board.getOccupancy(colour.opponent());
+        int enPassantSquare = game.getFlags().getEnPassantSquareIndex();
+        for (int colDelta = -1; colDelta <= 1; colDelta += 2) {
+            if (col + colDelta < 0 || col + colDelta >= Game.SIZE) {
+                continue;
+            }
+            int to = onceInFront + colDelta;
+            if ((enemies & (1L << to)) != 0) {
+                addPawnMove(from, to, PackedMove.CAPTURE, moves);
+            } else if (to == enPassantSquare) {
+                moves.add(PackedMove.of(from, to, PackedMove.CAPTURE | PackedMove.EN_PASSANT));
+            }
+        }
     }
 
-    private boolean onStartingSquare(Coordinates currentSquare) {
-        int startingRow = colour == PlayerColour.WHITE ? Game.SIZE - 2 : 1;
-        return currentSquare.getRow() == startingRow;
+    private void addPawnMove(int from, int to, int flags, MoveList moves) {
+        int toRow = to / Game.SIZE;
+        if (toRow == 0 || toRow == Game.SIZE - 1) {
+            moves.add(PackedMove.of(from, to, flags, PieceType.QUEEN));
+            moves.add(PackedMove.of(from, to, flags, PieceType.ROOK));
+            moves.add(PackedMove.of(from, to, flags, PieceType.BISHOP));
+            moves.add(PackedMove.of(from, to, flags, PieceType.KNIGHT));
+        } else {
+            moves.add(PackedMove.of(from, to, flags));
+        }
     }
 
-    private boolean isValidCapture(Game game, Move move) {
-        if (!game.getBoard().inBounds(move.getTo())) {
-            return false;
-        }
-        return containsEnemy(game.getBoard(), move.getTo()) || game.getFlags().getEnPassantSquare().map(move.getTo()::equals).orElse(false);
+    private boolean onStartingRow(int row) {
+        int startingRow = colour == PlayerColour.WHITE ? Game.SIZE - 2 : 1;
+        return row == startingRow;
     }
 }
@@ -3,6 +3,7 @@ package training.chessington.model.pieces;
 import training.chessington.model.Coordinates;
 import training.chessington.model.Game;
 import training.chessington.model.Move;
+import training.chessington.model.MoveList;
 import training.chessington.model.PlayerColour;
 
 import java.util.List;
@@ -16,4 +17,6 @@ public interface Piece {
     PlayerColour getColour();
 
     List<Move> getAllowedMoves(Coordinates from, Game game);
+
+    void generateMoves(int from, Game game, MoveList moves);
 }
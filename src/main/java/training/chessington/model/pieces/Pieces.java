@@ -0,0 +1,46 @@
+package training.chessington.model.pieces;
+
+import training.chessington.model.PlayerColour;
+
+public final class Pieces {
+
+    public static final int NONE = -1;
+    public static final int TYPE_COUNT = 6;
+    public static final int COUNT = TYPE_COUNT * 2;
+
+    private static final Piece[] PIECES = new Piece[COUNT];
+
+    static {
+        for (PlayerColour colour : PlayerColour.values()) {
+            PIECES[code(colour, Piece.PieceType.PAWN)] = new Pawn(colour);
+            PIECES[code(colour, Piece.PieceType.KNIGHT)] = new Knight(colour);
+            PIECES[code(colour, Piece.PieceType.BISHOP)] = new Bishop(colour);
+            PIECES[code(colour, Piece.PieceType.ROOK)] = new Rook(colour);
+            PIECES[code(colour, Piece.PieceType.QUEEN)] = new Queen(colour);
+            PIECES[code(colour, Piece.PieceType.KING)] = new King(colour);
+        }
+    }
+
+    private Pieces() {
+    }
+
+    public static int code(PlayerColour colour, Piece.PieceType type) {
+        return colour.ordinal() * TYPE_COUNT + type.ordinal();
+    }
+
+    public static int code(Piece piece) {
+        return code(piece.getColour(), piece.getType());
+    }
+
+    public static int colourOf(int code) {
+        return code / TYPE_COUNT;
+    }
+
+    public static int typeOf(int code) {
+        return code % TYPE_COUNT;
+    }
+
+    public static Piece fromCode(int code) {
+        return code == NONE ? null : PIECES[code];
+    }
+}
@@ -1,19 +1,16 @@
 package training.chessington.model.pieces;
 
-import training.chessington.model.Coordinates;
 import training.chessington.model.Game;
-import training.chessington.model.Move;
+import training.chessington.model.MoveList;
 import training.chessington.model.PlayerColour;
 
-import java.util.List;
-
 public class Rook extends AbstractPiece {
     public Rook(PlayerColour colour) {
         super(PieceType.ROOK, colour);
     }
 
     @Override
-    public List<Move> getAllowedMoves(Coordinates from, Game game) {
-        return getOrthogonalMoves(game.getBoard(), from);
+    public void generateMoves(int from, Game game, MoveList moves) {
+        addOrthogonalMoves(game.getBoard(), from, moves);
     }
 }
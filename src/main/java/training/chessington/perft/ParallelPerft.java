@@ -0,0 +1,92 @@
+package training.chessington.perft;
+
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelPerft implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+    private final PerftTable table;
+    private final int splitPlies;
+
+    public ParallelPerft(int threads, PerftTable table, int splitPlies) {
+        this.pool = new ForkJoinPool(threads);
+        this.table = table;
+        this.splitPlies = splitPlies;
+    }
+
+    public long count(Game game, int depth) {
+        return pool.invoke(new PerftTask(game.createCopy(), depth, splitPlies));
+    }
+
+    // Counts each root move's subtree on the pool, in move generation order like Perft.divide
+    public Map<Integer, Long> divide(Game game, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1, got " + depth);
+        }
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        List<ForkJoinTask<Long>> subtasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Game child = game.createCopy();
+            child.makeMove(moves.get(i));
+            subtasks.add(pool.submit(new PerftTask(child, depth - 1, Math.max(0, splitPlies - 1))));
+        }
+
+        Map<Integer, Long> nodesPerMove = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            nodesPerMove.put(moves.get(i), subtasks.get(i).join());
+        }
+        return nodesPerMove;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Game game;
+        private final int depth;
+        private final int pliesToSplit;
+
+        private PerftTask(Game game, int depth, int pliesToSplit) {
+            this.game = game;
+            this.depth = depth;
+            this.pliesToSplit = pliesToSplit;
+        }
+
+        @Override
+        protected Long compute() {
+            if (pliesToSplit == 0 || depth <= 2) {
+                return new Perft(game, table).count(depth);
+            }
+
+            // Each subtask gets its own copy of the position, so workers never share a Game
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(moves);
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                Game child = game.createCopy();
+                child.makeMove(moves.get(i));
+                subtasks.add(new PerftTask(child, depth - 1, pliesToSplit - 1));
+            }
+
+            long nodes = 0;
+            for (PerftTask subtask : invokeAll(subtasks)) {
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package training.chessington.perft;
+
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.model.MoveNotation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Perft {
+
+    private static final int MAX_DEPTH = 64;
+
+    private final Game game;
+    private final PerftTable table;
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH];
+
+    public Perft(Game game) {
+        this(game, null);
+    }
+
+    public Perft(Game game, PerftTable table) {
+        this.game = game;
+        this.table = table;
+    }
+
+    public long count(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Perft needs a depth of at least 0, got " + depth);
+        }
+        return depth == 0 ? 1 : count(depth, 0);
+    }
+
+    private long count(int depth, int ply) {
+        long hash = 0;
+        if (table != null && depth > 1) {
+            hash = game.positionHash();
+            long nodes = table.probe(hash, depth);
+            if (nodes >= 0) {
+                return nodes;
+            }
+        }
+
+        if (moveLists[ply] == null) {
+            moveLists[ply] = new MoveList();
+        }
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += count(depth - 1, ply + 1);
+            game.unmakeMove();
+        }
+
+        if (table != null) {
+            table.store(hash, depth, nodes);
+        }
+        return nodes;
+    }
+
+    public Map<Integer, Long> divide(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1, got " + depth);
+        }
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+
+        Map<Integer, Long> nodesPerMove = new LinkedHashMap<>();
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodesPerMove.put(moves.get(i), count(depth - 1));
+            game.unmakeMove();
+        }
+        return nodesPerMove;
+    }
+
+    public static void main(String[] args) {
+        boolean divide = false;
+        int threads = 1;
+        int hashMegabytes = 0;
+        int arg = 0;
+        for (; arg < args.length && args[arg].startsWith("--"); arg++) {
+            // An option missing its value leaves no depth, which ends in the usage message
+            if (!args[arg].equals("--divide") && arg + 1 == args.length) {
+                arg = args.length;
+                break;
+            }
+            switch (args[arg]) {
+                case "--divide": divide = true; break;
+                case "--threads": threads = Integer.parseInt(args[++arg]); break;
+                case "--hash": hashMegabytes = Integer.parseInt(args[++arg]); break;
+                default: arg = args.length; break;
+            }
+        }
+        int depth = arg < args.length ? Integer.parseInt(args[arg]) : -1;
+        if (depth < (divide ? 1 : 0)) {
+            System.err.println("Usage: Perft [--divide] [--threads N] [--hash MB] <depth> [fen]");
+            System.err.println("The depth must be at least 1 with --divide, and at least 0 otherwise");
+            System.exit(1);
+        }
+
+        String fen = args.length > arg + 1 ? String.join(" ", Arrays.copyOfRange(args, arg + 1, args.length)) : Fen.STARTING_POSITION;
+        Game game = Fen.parse(fen);
+        PerftTable table = hashMegabytes > 0 ? new PerftTable(hashMegabytes) : null;
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            Map<Integer, Long> nodesPerMove;
+            if (threads > 1) {
+                try (ParallelPerft parallelPerft = new ParallelPerft(threads, table, 2)) {
+                    nodesPerMove = parallelPerft.divide(game, depth);
+                }
+            } else {
+                nodesPerMove = new Perft(game, table).divide(depth);
+            }
+            nodes = 0;
+            for (Map.Entry<Integer, Long> entry : nodesPerMove.entrySet()) {
+                System.out.println(MoveNotation.toUci(entry.getKey()) + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println();
+        } else if (threads > 1) {
+            try (ParallelPerft parallelPerft = new ParallelPerft(threads, table, 2)) {
+                nodes = parallelPerft.count(game, depth);
+            }
+        } else {
+            nodes = new Perft(game, table).count(depth);
+        }
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + elapsedNanos / 1_000_000 + " ms");
+        System.out.println("Nodes/second: " + (long) (nodes * 1e9 / elapsedNanos));
+    }
+}
@@ -0,0 +1,35 @@
+package training.chessington.perft;
+
+public class PerftTable {
+
+    private static final long MAX_SLOTS = 1L << 29;
+
+    // Two longs per slot: (position hash ^ data) and data, where data packs (nodes << 8 | depth).
+    // A reader that sees a slot half way through another thread's store fails the XOR check,
+    // so threads can share the table without locking.
+    private final long[] entries;
+    private final int slotMask;
+
+    public PerftTable(int megabytes) {
+        long slots = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / 16));
+        slots = Math.min(slots, MAX_SLOTS);
+        entries = new long[(int) slots * 2];
+        slotMask = (int) slots - 1;
+    }
+
+    public long probe(long hash, int depth) {
+        int index = ((int) hash & slotMask) << 1;
+        long data = entries[index + 1];
+        if ((entries[index] ^ data) == hash && (data & 0xFF) == depth) {
+            return data >>> 8;
+        }
+        return -1;
+    }
+
+    public void store(long hash, int depth, long nodes) {
+        int index = ((int) hash & slotMask) << 1;
+        long data = (nodes << 8) | depth;
+        entries[index] = hash ^ data;
+        entries[index + 1] = data;
+    }
+}
@@ -0,0 +1,40 @@
+package training.chessington.pgn;
+
+import training.chessington.model.pieces.Result;
+
+// The outcome of validating one game, detached from the reusable PgnGame it was read into
+public final class GameReport {
+
+    private final long offset;
+    private final int plies;
+    private final Result result;
+    private final String error;
+
+    GameReport(PgnGame game) {
+        this.offset = game.getOffset();
+        this.plies = game.getMoves().size();
+        this.result = game.getResult();
+        this.error = game.getError();
+    }
+
+    // Position in the input of the game's first byte
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
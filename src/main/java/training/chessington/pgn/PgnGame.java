@@ -0,0 +1,157 @@
+package training.chessington.pgn;
+
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.model.pieces.Result;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// One game read by PgnReader. Instances are meant to be reused from game to game: tags are kept as raw
+// bytes and only decoded into strings when asked for, so reading a game allocates next to nothing.
+public final class PgnGame {
+
+    private byte[] tagBytes = new byte[512];
+    private int tagBytesLength;
+
+    // For each tag: start of the name, start of the value (the end of the name) and end of the value in tagBytes
+    private int[] tagBounds = new int[3 * 16];
+    private int tagCount;
+
+    private final MoveList moves = new MoveList(512);
+    private long gameNumber;
+    private long offset;
+    private Result result;
+    private String error;
+    private Game finalPosition;
+
+    // Position of the game in the file, counting from 1, when read by a PgnReader opened on the whole file.
+    // Games replayed in batches by PgnValidator have 0 here; only getOffset identifies them.
+    public long getGameNumber() {
+        return gameNumber;
+    }
+
+    // Position in the input of the game's first byte, which identifies it even when games are read out of order
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    public String getTagName(int index) {
+        return decode(tagBounds[3 * index], tagBounds[3 * index + 1]);
+    }
+
+    public String getTagValue(int index) {
+        return decode(tagBounds[3 * index + 1], tagBounds[3 * index + 2]);
+    }
+
+    // Value of the first tag with the given name, or null if the game has none
+    public String getTag(String name) {
+        int index = indexOfTag(name);
+        return index < 0 ? null : getTagValue(index);
+    }
+
+    // The moves replayed from the start position, up to the first error if there is one
+    public MoveList getMoves() {
+        return moves;
+    }
+
+    // The result given at the end of the movetext; IN_PROGRESS for "*"
+    public Result getResult() {
+        return result;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // The position after the last replayed move, or null if the start position could not be set up.
+    // The reader replays every game on the same instance, so this only holds until the next game is read.
+    public Game getFinalPosition() {
+        return finalPosition;
+    }
+
+    void reset(long gameNumber) {
+        this.gameNumber = gameNumber;
+        tagBytesLength = 0;
+        tagCount = 0;
+        moves.clear();
+        result = Result.IN_PROGRESS;
+        error = null;
+        finalPosition = null;
+    }
+
+    void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    void startTag() {
+        if (3 * tagCount + 3 > tagBounds.length) {
+            tagBounds = Arrays.copyOf(tagBounds, tagBounds.length * 2);
+        }
+        tagBounds[3 * tagCount] = tagBytesLength;
+        tagBounds[3 * tagCount + 1] = tagBytesLength;
+        tagBounds[3 * tagCount + 2] = tagBytesLength;
+    }
+
+    void appendTagByte(byte value) {
+        if (tagBytesLength == tagBytes.length) {
+            tagBytes = Arrays.copyOf(tagBytes, tagBytes.length * 2);
+        }
+        tagBytes[tagBytesLength++] = value;
+    }
+
+    void endTagName() {
+        tagBounds[3 * tagCount + 1] = tagBytesLength;
+    }
+
+    void endTag() {
+        tagBounds[3 * tagCount + 2] = tagBytesLength;
+        tagCount++;
+    }
+
+    // Compares the tag names byte by byte, so that looking up a tag does not decode every name
+    int indexOfTag(String name) {
+        for (int index = 0; index < tagCount; index++) {
+            int start = tagBounds[3 * index];
+            int end = tagBounds[3 * index + 1];
+            if (end - start != name.length()) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && tagBytes[start + i] == name.charAt(i)) {
+                i++;
+            }
+            if (i == name.length()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    void setResult(Result result) {
+        this.result = result;
+    }
+
+    // Only the first error of a game is kept, since later ones usually follow from it
+    void fail(String error) {
+        if (this.error == null) {
+            this.error = error;
+        }
+    }
+
+    void setFinalPosition(Game finalPosition) {
+        this.finalPosition = finalPosition;
+    }
+
+    private String decode(int start, int end) {
+        return new String(tagBytes, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,336 @@
+package training.chessington.pgn;
+
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveGenerator;
+import training.chessington.model.MoveList;
+import training.chessington.model.MoveNotation;
+import training.chessington.model.PackedMove;
+import training.chessington.model.PlayerColour;
+import training.chessington.model.pieces.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams games out of a PGN file one at a time. The input is tokenised straight from a fixed-size
+// byte buffer and every move is resolved against the rules in the replayed position, so
+// memory use does not depend on the size of the file and no strings are built for valid games.
+public class PgnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN_LENGTH = 32;
+    private static final int EOF = -1;
+
+    private ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] bytes;
+    private int cursor;
+    private int limit;
+    private int pushedBack = EOF;
+
+    // Offset in the input of bytes[0]
+    private long bufferOffset;
+
+    private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+    private int tokenLength;
+    private final MoveList legalMoves = new MoveList();
+    private final MoveNotation notation = new MoveNotation();
+    private long gameCount;
+
+    // Every game is replayed on the same instance
+    private final Game startingPosition = Game.newGame();
+    private final Game replay = Game.newGame();
+
+    public PgnReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        bytes = buffer.array();
+    }
+
+    // Reads from bytes already in memory, such as one batch of a larger file
+    PgnReader() {
+    }
+
+    // Starts reading the first length bytes of data, which begin at the given offset of the input
+    void load(byte[] data, int length, long offset) {
+        bytes = data;
+        cursor = 0;
+        limit = length;
+        bufferOffset = offset;
+        pushedBack = EOF;
+    }
+
+    // Reads the next game into the given one, returning false once the input has no more games
+    public boolean next(PgnGame game) throws IOException {
+        // A batch does not know how many games came before it in the file, so its games are not numbered
+        game.reset(channel == null ? 0 : gameCount + 1);
+        Game position = null;
+        boolean inMovetext = false;
+        boolean started = false;
+
+        int c;
+        while ((c = read()) != EOF) {
+            // Outside movetext, bytes above ASCII can only be noise such as a byte order mark
+            if (c <= ' ' || (!inMovetext && c >= 0x80)) {
+                continue;
+            }
+            if (!started) {
+                started = true;
+                game.setOffset(bufferOffset + cursor - 1);
+            }
+            if (c == '[') {
+                if (inMovetext) {
+                    // A tag section straight after movetext starts the next game
+                    pushedBack = c;
+                    game.fail("Missing game termination marker");
+                    break;
+                }
+                readTag(game);
+                continue;
+            }
+            if (!inMovetext) {
+                inMovetext = true;
+                position = startPosition(game);
+            }
+
+            if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || c == '%') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '.') {
+                // Dots after a move number may run straight into the move, as in "1.e4" or "1...e5"
+                skipDots();
+            } else if (c == '$' || c == '!' || c == '?') {
+                readToken(c);
+            } else if (c == '*') {
+                game.setResult(Result.IN_PROGRESS);
+                return finish(game, position);
+            } else {
+                readToken(c);
+                Result result = parseResult();
+                if (result != null) {
+                    game.setResult(result);
+                    return finish(game, position);
+                }
+                if (!isMoveNumber() && game.isValid() && position != null) {
+                    playMove(game, position);
+                }
+            }
+        }
+
+        if (!started) {
+            return false;
+        }
+        game.fail("Missing game termination marker");
+        return finish(game, position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private boolean finish(PgnGame game, Game position) {
+        gameCount++;
+        game.setFinalPosition(position);
+        if (game.isValid() && position != null) {
+            checkResult(game, position);
+        }
+        return true;
+    }
+
+    // A game that ends in checkmate or stalemate has only one possible result
+    private void checkResult(PgnGame game, Game position) {
+        legalMoves.clear();
+        position.generateLegalMoves(legalMoves);
+        if (!legalMoves.isEmpty()) {
+            return;
+        }
+        Result expected;
+        if (MoveGenerator.isInCheck(position)) {
+            expected = position.getGameInfo().getNextPlayer() == PlayerColour.WHITE ? Result.BLACK_WINS : Result.WHITE_WINS;
+        } else {
+            expected = Result.DRAW;
+        }
+        if (game.getResult() != expected) {
+            game.fail("Result " + game.getResult() + " does not match final position, expected " + expected);
+        }
+    }
+
+    private Game startPosition(PgnGame game) {
+        int fenTag = game.indexOfTag("FEN");
+        if (fenTag < 0) {
+            replay.copyFrom(startingPosition);
+            return replay;
+        }
+        try {
+            replay.copyFrom(Fen.parse(game.getTagValue(fenTag)));
+            return replay;
+        } catch (IllegalArgumentException e) {
+            game.fail(e.getMessage());
+            return null;
+        }
+    }
+
+    private void playMove(PgnGame game, Game position) {
+        int move = notation.parseSan(position, token, 0, tokenLength);
+        if (move == PackedMove.NONE || move == MoveNotation.AMBIGUOUS) {
+            int ply = game.getMoves().size() + 1;
+            String san = new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+            game.fail(String.format("%s move %s at ply %d", move == MoveNotation.AMBIGUOUS ? "Ambiguous" : "Illegal", san, ply));
+            return;
+        }
+        position.makeMove(move);
+        game.getMoves().add(move);
+    }
+
+    private Result parseResult() {
+        if (tokenLength == 3 && token[1] == '-') {
+            if (token[0] == '1' && token[2] == '0') {
+                return Result.WHITE_WINS;
+            }
+            if (token[0] == '0' && token[2] == '1') {
+                return Result.BLACK_WINS;
+            }
+        }
+        if (tokenLength == 7 && token[0] == '1' && token[1] == '/' && token[2] == '2' && token[3] == '-'
+                && token[4] == '1' && token[5] == '/' && token[6] == '2') {
+            return Result.DRAW;
+        }
+        return null;
+    }
+
+    private boolean isMoveNumber() {
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] < '0' || token[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Collects a symbol into the token buffer, stopping at whitespace or any character that starts another token
+    private void readToken(int first) throws IOException {
+        tokenLength = 0;
+        int c = first;
+        while (true) {
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (byte) c;
+            }
+            c = read();
+            if (c <= ' ' || c == '.' || c == '{' || c == '(' || c == ')' || c == '[' || c == ';' || c == '$' || c == '*') {
+                break;
+            }
+        }
+        if (c != EOF && c > ' ') {
+            pushedBack = c;
+        }
+    }
+
+    private void skipDots() throws IOException {
+        int c = read();
+        while (c == '.') {
+            c = read();
+        }
+        if (c != EOF && c > ' ') {
+            pushedBack = c;
+        }
+    }
+
+    private void readTag(PgnGame game) throws IOException {
+        game.startTag();
+        int c = read();
+        while (c == ' ' || c == '\t') {
+            c = read();
+        }
+        while (c > ' ' && c != '"' && c != ']') {
+            game.appendTagByte((byte) c);
+            c = read();
+        }
+        game.endTagName();
+        while (c != '"' && c != ']' && c != '\n' && c != EOF) {
+            c = read();
+        }
+        if (c != '"') {
+            game.endTag();
+            game.fail("Malformed tag pair");
+            return;
+        }
+        for (c = read(); c != '"' && c != '\n' && c != EOF; c = read()) {
+            if (c == '\\') {
+                c = read();
+            }
+            game.appendTagByte((byte) c);
+        }
+        game.endTag();
+        while (c != ']' && c != '\n' && c != EOF) {
+            c = read();
+        }
+        if (c != ']') {
+            game.fail("Malformed tag pair");
+        }
+    }
+
+    // Variations may nest and may contain comments, which may in turn contain parentheses
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != EOF) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipPast('}');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != end && c != EOF);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != EOF) {
+            int c = pushedBack;
+            pushedBack = EOF;
+            return c;
+        }
+        if (cursor == limit && !fill()) {
+            return EOF;
+        }
+        return bytes[cursor++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        bufferOffset += limit;
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        cursor = 0;
+        limit = Math.max(0, buffer.position());
+        return read > 0;
+    }
+}
@@ -0,0 +1,294 @@
+package training.chessington.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Validates a PGN file on several threads. One reader thread cuts the input into batches of whole
+// games, a pool of workers replays each batch on its own PgnReader and Game, and the calling thread
+// hands the reports to a collector, either in input order or as soon as each batch is done. The queues
+// and the number of batches in flight are bounded, so a slow stage holds back the ones before it
+// instead of buffering the file.
+public class PgnValidator {
+
+    private static final int BATCH_SIZE = 1 << 18;
+    private static final int QUEUE_BATCHES_PER_WORKER = 2;
+
+    // Also bounds the batches held back by the ordered collector behind one slow batch
+    private static final int MAX_BATCHES_IN_FLIGHT_PER_WORKER = 4;
+
+    private static final Batch END_OF_INPUT = new Batch(-1, new byte[0], 0, 0);
+    private static final BatchResult WORKER_DONE = new BatchResult(-1, new ArrayList<>());
+
+    private final int threads;
+    private final boolean ordered;
+
+    public PgnValidator(int threads, boolean ordered) {
+        this.threads = Math.max(1, threads);
+        this.ordered = ordered;
+    }
+
+    // Returns the number of games read
+    public long validate(Path path, Consumer<GameReport> collector) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return validate(channel, collector);
+        }
+    }
+
+    public long validate(ReadableByteChannel channel, Consumer<GameReport> collector) throws IOException {
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(threads * QUEUE_BATCHES_PER_WORKER);
+        BlockingQueue<BatchResult> results = new ArrayBlockingQueue<>(threads * QUEUE_BATCHES_PER_WORKER);
+        Semaphore batchesInFlight = new Semaphore(threads * MAX_BATCHES_IN_FLIGHT_PER_WORKER);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread[] pipeline = new Thread[threads + 1];
+        pipeline[0] = new Thread(() -> split(channel, batches, batchesInFlight, failure), "pgn-reader");
+        for (int i = 1; i < pipeline.length; i++) {
+            pipeline[i] = new Thread(() -> replay(batches, results, failure), "pgn-worker-" + i);
+        }
+        for (Thread thread : pipeline) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long games = 0;
+        try {
+            games = collect(results, batchesInFlight, collector, failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while validating games", e);
+        } finally {
+            // When collect stops early, because the collector threw or a stage failed, the threads still
+            // blocked on a queue or on the semaphore would otherwise wait forever
+            for (Thread thread : pipeline) {
+                thread.interrupt();
+            }
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause != null) {
+            throw new IllegalStateException("Game validation failed", cause);
+        }
+        return games;
+    }
+
+    // Reader thread: fills a buffer, hands out everything up to the last game boundary in it and
+    // carries the unfinished game over into the next buffer
+    private void split(ReadableByteChannel channel, BlockingQueue<Batch> batches, Semaphore batchesInFlight, AtomicReference<Throwable> failure) {
+        boolean cancelled = false;
+        try {
+            byte[] data = new byte[BATCH_SIZE];
+            int length = 0;
+            long offset = 0;
+            long sequence = 0;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                int read = channel.read(ByteBuffer.wrap(data, length, data.length - length));
+                endOfInput = read < 0;
+                length += Math.max(0, read);
+                if (length < data.length && !endOfInput) {
+                    continue;
+                }
+
+                int end = endOfInput ? length : lastGameBoundary(data, length);
+                if (end > 0) {
+                    batchesInFlight.acquire();
+                    batches.put(new Batch(sequence++, data, end, offset));
+                    byte[] next = new byte[Math.max(BATCH_SIZE, (length - end) * 2)];
+                    System.arraycopy(data, end, next, 0, length - end);
+                    data = next;
+                    length -= end;
+                    offset += end;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (Error e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            // A cancelled run has no workers left to tell
+            if (!cancelled) {
+                endInput(batches);
+            }
+        }
+    }
+
+    private void endInput(BlockingQueue<Batch> batches) {
+        try {
+            for (int i = 0; i < threads; i++) {
+                batches.put(END_OF_INPUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A game starts with a tag section after a blank line; 0 if the data holds no complete game yet
+    static int lastGameBoundary(byte[] data, int length) {
+        for (int i = length - 1; i >= 2; i--) {
+            if (data[i] == '[' && data[i - 1] == '\n' && (data[i - 2] == '\n' || (i >= 3 && data[i - 2] == '\r' && data[i - 3] == '\n'))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    // Worker thread: every worker keeps one reader, one PgnGame and the Game inside the reader for all its batches
+    private void replay(BlockingQueue<Batch> batches, BlockingQueue<BatchResult> results, AtomicReference<Throwable> failure) {
+        PgnReader reader = new PgnReader();
+        PgnGame game = new PgnGame();
+        try {
+            Batch batch;
+            while ((batch = batches.take()) != END_OF_INPUT) {
+                List<GameReport> reports = new ArrayList<>();
+                try {
+                    reader.load(batch.data, batch.length, batch.offset);
+                    while (reader.next(game)) {
+                        reports.add(new GameReport(game));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                // Every batch gets a result, even a failed one, so that the ordered collector never waits forever
+                results.put(new BatchResult(batch.sequence, reports));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Error e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            // Posted even by a worker that dies, so that the collector never waits for it forever;
+            // an interrupted worker fails this at once instead of blocking
+            try {
+                results.put(WORKER_DONE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Calling thread: in ordered mode, batches that finish early wait until all earlier ones are out
+    private long collect(BlockingQueue<BatchResult> results, Semaphore batchesInFlight, Consumer<GameReport> collector,
+                         AtomicReference<Throwable> failure) throws InterruptedException {
+        Map<Long, BatchResult> pending = new HashMap<>();
+        long nextSequence = 0;
+        long games = 0;
+        int workersDone = 0;
+        while (workersDone < threads) {
+            BatchResult result = results.take();
+            // A failed stage may leave a batch without a result, so the ordered collector could wait forever
+            if (failure.get() != null) {
+                break;
+            }
+            if (result == WORKER_DONE) {
+                workersDone++;
+                continue;
+            }
+            if (!ordered) {
+                games += emit(result, batchesInFlight, collector);
+                continue;
+            }
+            pending.put(result.sequence, result);
+            while ((result = pending.remove(nextSequence)) != null) {
+                games += emit(result, batchesInFlight, collector);
+                nextSequence++;
+            }
+        }
+        return games;
+    }
+
+    private static int emit(BatchResult result, Semaphore batchesInFlight, Consumer<GameReport> collector) {
+        for (GameReport report : result.reports) {
+            collector.accept(report);
+        }
+        batchesInFlight.release();
+        return result.reports.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = true;
+        int arg = 0;
+        for (; arg < args.length && args[arg].startsWith("--"); arg++) {
+            // An option missing its value leaves no file name, which ends in the usage message
+            if (args[arg].equals("--threads") && arg + 1 == args.length) {
+                arg = args.length;
+                break;
+            }
+            switch (args[arg]) {
+                case "--threads": threads = Integer.parseInt(args[++arg]); break;
+                case "--unordered": ordered = false; break;
+                default: arg = args.length; break;
+            }
+        }
+        if (arg != args.length - 1) {
+            System.err.println("Usage: PgnValidator [--threads N] [--unordered] <file.pgn>");
+            System.exit(1);
+        }
+
+        AtomicLong invalid = new AtomicLong();
+        long start = System.nanoTime();
+        long games = new PgnValidator(threads, ordered).validate(Paths.get(args[arg]), report -> {
+            if (!report.isValid()) {
+                invalid.incrementAndGet();
+                System.out.println("Game at byte " + report.getOffset() + ": " + report.getError());
+            }
+        });
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Games: " + games);
+        System.out.println("Invalid: " + invalid.get());
+        System.out.println("Time: " + elapsedNanos / 1_000_000 + " ms");
+        System.out.println("Games/second: " + (long) (games * 1e9 / elapsedNanos));
+    }
+
+    private static final class Batch {
+        private final long sequence;
+        private final byte[] data;
+        private final int length;
+        private final long offset;
+
+        private Batch(long sequence, byte[] data, int length, long offset) {
+            this.sequence = sequence;
+            this.data = data;
+            this.length = length;
+            this.offset = offset;
+        }
+    }
+
+    private static final class BatchResult {
+        private final long sequence;
+        private final List<GameReport> reports;
+
+        private BatchResult(long sequence, List<GameReport> reports) {
+            this.sequence = sequence;
+            this.reports = reports;
+        }
+    }
+}
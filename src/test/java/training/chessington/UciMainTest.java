@@ -0,0 +1,94 @@
+package training.chessington;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class UciMainTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final UciMain uci = new UciMain(new PrintStream(output, true));
+
+    private String waitForBestMove() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!output.toString().contains("bestmove") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return output.toString();
+    }
+
+    @Test
+    public void handshakeListsOptionsAndEndsWithUciOk() {
+        // Act
+        uci.handle("uci");
+        uci.handle("isready");
+
+        // Assert
+        assertThat(output.toString())
+                .contains("option name Hash type spin")
+                .contains("option name Threads type spin")
+                .contains("uciok")
+                .endsWith("readyok" + System.lineSeparator());
+    }
+
+    @Test
+    public void searchFromFenReportsMateAndBestMove() throws InterruptedException {
+        // Arrange
+        uci.handle("setoption name Threads value 2");
+        uci.handle("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+
+        // Act
+        uci.handle("go depth 4");
+        String result = waitForBestMove();
+
+        // Assert
+        assertThat(result).contains("score mate 1").contains("pv a1a8").contains("bestmove a1a8");
+    }
+
+    @Test
+    public void movesAreAppliedBeforeSearching() throws InterruptedException {
+        // Arrange - after 1. f3 e5 2. g4 black mates with Qh4
+        uci.handle("position startpos moves f2f3 e7e5 g2g4");
+
+        // Act
+        uci.handle("go depth 2");
+        String result = waitForBestMove();
+
+        // Assert
+        assertThat(result).contains("bestmove d8h4");
+    }
+
+    @Test
+    public void infiniteSearchReportsBestMoveOnlyAfterStop() throws InterruptedException {
+        // Arrange
+        uci.handle("position startpos");
+        uci.handle("go infinite");
+        Thread.sleep(100);
+        String beforeStop = output.toString();
+
+        // Act
+        uci.handle("stop");
+
+        // Assert
+        assertThat(beforeStop).doesNotContain("bestmove");
+        assertThat(output.toString()).contains("bestmove ");
+    }
+
+    @Test
+    public void stopImmediatelyAfterGoInfiniteStillReportsBestMove() {
+        // Arrange
+        uci.handle("position startpos");
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            uci.handle("go infinite");
+            uci.handle("stop");
+        }
+
+        // Assert
+        assertThat(output.toString().split("bestmove ", -1)).hasSize(21);
+    }
+}
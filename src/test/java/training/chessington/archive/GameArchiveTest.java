@@ -0,0 +1,211 @@
+package training.chessington.archive;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import training.chessington.model.pieces.Result;
+import training.chessington.pgn.PgnGame;
+import training.chessington.pgn.PgnReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class GameArchiveTest {
+
+    private static final String GAMES = "[Event \"Casual\"]\n[White \"Alice\"]\n[Black \"Bob\"]\n[Result \"1-0\"]\n\n"
+            + "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n"
+            + "[Event \"Endgame\"]\n[FEN \"4k3/1P6/8/8/8/8/8/4K2R w K - 0 1\"]\n[Result \"*\"]\n\n"
+            + "1. O-O Kd7 2. b8=N+ Kc7 3. Nd7 *\n\n"
+            + "[Event \"Casual\"]\n[White \"Bob\"]\n[Black \"Carol \\u00e9\"]\n[Result \"1/2-1/2\"]\n\n"
+            + "1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1 Ng8 1/2-1/2\n\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void gamesReadBackInAnyOrderMatchTheirPgn() throws IOException {
+        // Arrange
+        List<PgnSnapshot> expected = readPgn(GAMES);
+        Path path = writeArchive(GAMES);
+
+        // Act
+        List<PgnSnapshot> actual = new ArrayList<>();
+        try (GameArchive archive = new GameArchive(path)) {
+            ArchivedGame game = new ArchivedGame();
+            for (long index = archive.size() - 1; index >= 0; index--) {
+                archive.read(index, game);
+                actual.add(0, new PgnSnapshot(game));
+            }
+        }
+
+        // Assert
+        assertThat(actual).hasSize(3);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).tags).isEqualTo(expected.get(i).tags);
+            assertThat(actual.get(i).moves).isEqualTo(expected.get(i).moves);
+            assertThat(actual.get(i).result).isEqualTo(expected.get(i).result);
+            assertThat(actual.get(i).finalFen).isEqualTo(expected.get(i).finalFen);
+        }
+    }
+
+    @Test
+    public void archiveIsMuchSmallerThanPgn() throws IOException {
+        // Arrange
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            pgn.append(GAMES);
+        }
+
+        // Act
+        Path path = writeArchive(pgn.toString());
+
+        // Assert
+        assertThat(Files.size(path)).isLessThan(pgn.length() / 4);
+    }
+
+    @Test
+    public void onlyRepeatingTagsAreInternedAndNoTemporaryFilesAreLeft() throws IOException {
+        // Arrange
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            pgn.append("[Event \"Casual\"]\n[Site \"https://example.org/game/").append(i).append("\"]\n\n1. e4 e5 *\n\n");
+        }
+        Path path = folder.newFolder().toPath().resolve("games.archive");
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.toString().getBytes(StandardCharsets.UTF_8))));
+
+        // Act
+        int stringCount;
+        try (GameArchiveWriter writer = new GameArchiveWriter(path)) {
+            PgnGame game = new PgnGame();
+            while (reader.next(game)) {
+                writer.add(game);
+            }
+            stringCount = writer.getStringCount();
+        }
+        String site;
+        try (GameArchive archive = new GameArchive(path)) {
+            ArchivedGame game = new ArchivedGame();
+            archive.read(1234, game);
+            site = game.getTag("Site");
+        }
+
+        // Assert
+        assertThat(stringCount).isEqualTo(3);
+        assertThat(site).isEqualTo("https://example.org/game/1234");
+        assertThat(path.getParent().toFile().list()).containsExactly("games.archive");
+    }
+
+    @Test
+    public void gameAfterOneTooLongToArchiveIsStoredIntact() throws IOException {
+        // Arrange - the repeated tag fills the record to within a byte of its limit, so it overflows partway through the moves
+        StringBuilder tooLong = new StringBuilder();
+        for (int i = 0; i < 32765; i++) {
+            tooLong.append("[A \"x\"]\n");
+        }
+        tooLong.append("\n1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Ng1 Ng8 5. Nf3 Nf6 6. Ng1 Ng8 *\n\n");
+        List<PgnSnapshot> expected = readPgn(GAMES);
+        Path path = folder.newFile().toPath();
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream((tooLong + GAMES).getBytes(StandardCharsets.UTF_8))));
+
+        // Act
+        int rejected = 0;
+        try (GameArchiveWriter writer = new GameArchiveWriter(path)) {
+            PgnGame game = new PgnGame();
+            while (reader.next(game)) {
+                try {
+                    writer.add(game);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                }
+            }
+        }
+        List<PgnSnapshot> actual = new ArrayList<>();
+        try (GameArchive archive = new GameArchive(path)) {
+            ArchivedGame game = new ArchivedGame();
+            for (long index = 0; index < archive.size(); index++) {
+                archive.read(index, game);
+                actual.add(new PgnSnapshot(game));
+            }
+        }
+
+        // Assert
+        assertThat(rejected).isEqualTo(1);
+        assertThat(actual).hasSize(3);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).moves).isEqualTo(expected.get(i).moves);
+            assertThat(actual.get(i).finalFen).isEqualTo(expected.get(i).finalFen);
+        }
+    }
+
+    @Test
+    public void fileThatIsNotAnArchiveIsRejected() throws IOException {
+        // Arrange
+        Path path = folder.newFile("games.pgn").toPath();
+        Files.write(path, GAMES.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        Throwable thrown = catchThrowable(() -> new GameArchive(path));
+
+        // Assert
+        assertThat(thrown).isInstanceOf(IOException.class);
+    }
+
+    private Path writeArchive(String pgn) throws IOException {
+        Path path = folder.newFile().toPath();
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+        try (GameArchiveWriter writer = new GameArchiveWriter(path)) {
+            PgnGame game = new PgnGame();
+            while (reader.next(game)) {
+                writer.add(game);
+            }
+        }
+        return path;
+    }
+
+    private static List<PgnSnapshot> readPgn(String pgn) throws IOException {
+        List<PgnSnapshot> games = new ArrayList<>();
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+        PgnGame game = new PgnGame();
+        while (reader.next(game)) {
+            games.add(new PgnSnapshot(game));
+        }
+        return games;
+    }
+
+    private static final class PgnSnapshot {
+        private final List<String> tags = new ArrayList<>();
+        private final List<Integer> moves = new ArrayList<>();
+        private final Result result;
+        private final String finalFen;
+
+        private PgnSnapshot(PgnGame game) {
+            for (int i = 0; i < game.getTagCount(); i++) {
+                tags.add(game.getTagName(i) + "=" + game.getTagValue(i));
+            }
+            for (int i = 0; i < game.getMoves().size(); i++) {
+                moves.add(game.getMoves().get(i));
+            }
+            result = game.getResult();
+            finalFen = game.getFinalPosition().toFen();
+        }
+
+        private PgnSnapshot(ArchivedGame game) {
+            for (int i = 0; i < game.getTagCount(); i++) {
+                tags.add(game.getTagName(i) + "=" + game.getTagValue(i));
+            }
+            for (int i = 0; i < game.getMoves().size(); i++) {
+                moves.add(game.getMoves().get(i));
+            }
+            result = game.getResult();
+            finalFen = game.getFinalPosition().toFen();
+        }
+    }
+}
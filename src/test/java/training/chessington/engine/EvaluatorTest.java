@@ -0,0 +1,47 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class EvaluatorTest {
+
+    @Test
+    public void mirroredPositionsScoreTheSameForTheSideToMove() {
+        // Arrange
+        Evaluator evaluator = new Evaluator();
+
+        // Act
+        int white = evaluator.evaluate(Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4"));
+        int black = evaluator.evaluate(Fen.parse("rnbqk2r/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R b KQkq - 4 4"));
+
+        // Assert
+        assertThat(white).isEqualTo(black);
+    }
+
+    @Test
+    public void extraQueenOutweighsPlacement() {
+        // Arrange
+        Evaluator evaluator = new Evaluator();
+
+        // Act
+        int score = evaluator.evaluate(Fen.parse("4k3/8/8/8/8/8/8/Q3K3 b - - 0 1"));
+
+        // Assert
+        assertThat(score).isLessThan(-800);
+    }
+
+    @Test
+    public void centralKnightScoresBetterThanCornerKnight() {
+        // Arrange
+        Evaluator evaluator = new Evaluator();
+
+        // Act
+        int central = evaluator.evaluate(Fen.parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1"));
+        int corner = evaluator.evaluate(Fen.parse("4k3/8/8/8/8/8/8/N3K3 w - - 0 1"));
+
+        // Assert
+        assertThat(central).isGreaterThan(corner);
+    }
+}
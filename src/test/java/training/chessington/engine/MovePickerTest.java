@@ -0,0 +1,80 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static training.chessington.model.MoveNotation.parseSquare;
+
+public class MovePickerTest {
+
+    // White queen d1 can take an undefended knight on d5 or a pawn on h5 defended by g6
+    private static final String POSITION = "4k3/8/6p1/3n3p/8/8/8/3QK3 w - - 0 1";
+
+    @Test
+    public void pickerReturnsEveryLegalMoveExactlyOnce() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        MoveList legalMoves = new MoveList();
+        game.generateLegalMoves(legalMoves);
+        MovePicker picker = new MovePicker();
+
+        // Act
+        picker.init(game, legalMoves.get(10), legalMoves.get(3), legalMoves.get(20), PackedMove.NONE, new int[64 * 64]);
+        List<Integer> picked = pickAll(picker);
+
+        // Assert
+        assertThat(picked).hasSize(legalMoves.size()).doesNotHaveDuplicates();
+        assertThat(picked.get(0)).isEqualTo(legalMoves.get(10));
+    }
+
+    @Test
+    public void pickerOrdersStagesByExpectedValue() {
+        // Arrange
+        Game game = Fen.parse(POSITION);
+        int tableMove = PackedMove.of(parseSquare("e1"), parseSquare("f2"), 0);
+        int goodCapture = PackedMove.of(parseSquare("d1"), parseSquare("d5"), PackedMove.CAPTURE);
+        int badCapture = PackedMove.of(parseSquare("d1"), parseSquare("h5"), PackedMove.CAPTURE);
+        int killer = PackedMove.of(parseSquare("d1"), parseSquare("a4"), 0);
+        int[] history = new int[64 * 64];
+        int historyMove = PackedMove.of(parseSquare("d1"), parseSquare("b3"), 0);
+        history[MovePicker.butterflyIndex(historyMove)] = 500;
+        MovePicker picker = new MovePicker();
+
+        // Act
+        picker.init(game, tableMove, killer, PackedMove.NONE, PackedMove.NONE, history);
+        List<Integer> picked = pickAll(picker);
+
+        // Assert
+        assertThat(picked.subList(0, 4)).containsExactly(tableMove, goodCapture, killer, historyMove);
+        assertThat(picked.get(picked.size() - 1)).isEqualTo(badCapture);
+    }
+
+    @Test
+    public void captureOnlyPickerSkipsLosingCaptures() {
+        // Arrange
+        Game game = Fen.parse(POSITION);
+        MovePicker picker = new MovePicker();
+
+        // Act
+        picker.initCaptures(game);
+        List<Integer> picked = pickAll(picker);
+
+        // Assert
+        assertThat(picked).containsExactly(PackedMove.of(parseSquare("d1"), parseSquare("d5"), PackedMove.CAPTURE));
+    }
+
+    private static List<Integer> pickAll(MovePicker picker) {
+        List<Integer> picked = new ArrayList<>();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            picked.add(move);
+        }
+        return picked;
+    }
+}
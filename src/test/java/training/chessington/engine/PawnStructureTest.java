@@ -0,0 +1,65 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveTree;
+import training.chessington.model.PlayerColour;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PawnStructureTest {
+
+    @Test
+    public void advancedPassedPawnScoresMoreThanBlockedPawn() {
+        // Arrange
+        Game passed = Fen.parse("4k3/8/2P5/8/8/8/8/4K3 w - - 0 1");
+        Game blocked = Fen.parse("4k3/2p5/2P5/8/8/8/8/4K3 w - - 0 1");
+
+        // Act
+        long passedStructure = PawnStructure.evaluate(passed.getBoard());
+        long blockedStructure = PawnStructure.evaluate(blocked.getBoard());
+
+        // Assert
+        assertThat(PawnStructure.endgame(passedStructure)).isGreaterThan(PawnStructure.endgame(blockedStructure));
+    }
+
+    @Test
+    public void doubledIsolatedPawnsArePenalised() {
+        // Arrange
+        Game game = Fen.parse("4k3/pp6/8/8/8/2P5/2P5/4K3 w - - 0 1");
+
+        // Act
+        long structure = PawnStructure.evaluate(game.getBoard());
+
+        // Assert
+        assertThat(PawnStructure.midgame(structure)).isLessThan(0);
+    }
+
+    @Test
+    public void shieldCountsPawnsInFrontOfEachWing() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/8/8/8/6P1/5P1P/4K3 w - - 0 1");
+
+        // Act
+        long structure = PawnStructure.evaluate(game.getBoard());
+
+        // Assert
+        assertThat(PawnStructure.shield(structure, PlayerColour.WHITE, 1)).isEqualTo(25);
+        assertThat(PawnStructure.shield(structure, PlayerColour.WHITE, 0)).isEqualTo(0);
+        assertThat(PawnStructure.shield(structure, PlayerColour.BLACK, 1)).isEqualTo(0);
+    }
+
+    @Test
+    public void pawnTableServesMostEvaluationsDuringSearch() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        Evaluator evaluator = new Evaluator();
+
+        // Act
+        MoveTree.playAllMovesToDepth(game, 2, evaluator::evaluate);
+
+        // Assert
+        assertThat(evaluator.getPawnTableHitRate()).isGreaterThan(0.9);
+    }
+}
@@ -0,0 +1,135 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
+
+import static org.assertj.core.api.Assertions.*;
+import static training.chessington.model.MoveNotation.parseSquare;
+
+public class SearcherTest {
+
+    @Test
+    public void searcherFindsBackRankMate() {
+        // Arrange
+        Game game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+
+        // Act
+        SearchResult result = new Searcher().search(game, SearchLimits.forDepth(4));
+
+        // Assert
+        assertThat(result.getBestMove()).isEqualTo(PackedMove.of(parseSquare("a1"), parseSquare("a8"), 0));
+        assertThat(result.getScore()).isEqualTo(Searcher.MATE - 1);
+        assertThat(result.isMateScore()).isTrue();
+    }
+
+    @Test
+    public void stopBetweenSearchesDoesNotCutShortTheNextOne() {
+        // Arrange
+        Searcher searcher = new Searcher();
+        searcher.stop();
+
+        // Act
+        SearchResult result = searcher.search(Game.newGame(), SearchLimits.forDepth(4));
+
+        // Assert
+        assertThat(result.getDepth()).isEqualTo(4);
+    }
+
+    @Test
+    public void searcherCapturesUndefendedQueen() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+
+        // Act
+        SearchResult result = new Searcher().search(game, SearchLimits.forDepth(3));
+
+        // Assert
+        assertThat(result.getBestMove()).isEqualTo(PackedMove.of(parseSquare("d1"), parseSquare("d5"), PackedMove.CAPTURE));
+        assertThat(result.getScore()).isGreaterThan(0);
+        assertThat(result.getPrincipalVariation()).startsWith(result.getBestMove());
+    }
+
+    @Test
+    public void stalemateHasNoBestMoveAndDrawScore() {
+        // Arrange
+        Game game = Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+
+        // Act
+        SearchResult result = new Searcher().search(game, SearchLimits.forDepth(3));
+
+        // Assert
+        assertThat(result.getBestMove()).isEqualTo(PackedMove.NONE);
+        assertThat(result.getScore()).isEqualTo(0);
+    }
+
+    @Test
+    public void searcherStaysWithinNodeBudgetAndLeavesGameUntouched() {
+        // Arrange
+        Game game = Fen.parse(Fen.STARTING_POSITION);
+        long hashBefore = game.positionHash();
+
+        // Act
+        SearchResult result = new Searcher().search(game, SearchLimits.forNodes(5000));
+
+        // Assert
+        MoveList legalMoves = new MoveList();
+        game.generateLegalMoves(legalMoves);
+        assertThat(result.getNodes()).isLessThanOrEqualTo(5000);
+        assertThat(legalMoves.contains(result.getBestMove())).isTrue();
+        assertThat(game.positionHash()).isEqualTo(hashBefore);
+    }
+
+    @Test
+    public void parallelSearchFindsBackRankMate() {
+        // Arrange
+        Game game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Searcher searcher = new Searcher();
+        searcher.setThreads(4);
+
+        // Act
+        SearchResult result = searcher.search(game, SearchLimits.forDepth(4));
+
+        // Assert
+        assertThat(result.getBestMove()).isEqualTo(PackedMove.of(parseSquare("a1"), parseSquare("a8"), 0));
+        assertThat(result.getScore()).isEqualTo(Searcher.MATE - 1);
+    }
+
+    @Test
+    public void parallelSearchStopsAtTimeLimitWithLegalMove() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        Searcher searcher = new Searcher();
+        searcher.setThreads(3);
+
+        // Act
+        long start = System.nanoTime();
+        SearchResult result = searcher.search(game, SearchLimits.forTime(200));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        MoveList legalMoves = new MoveList();
+        game.generateLegalMoves(legalMoves);
+        assertThat(legalMoves.contains(result.getBestMove())).isTrue();
+        assertThat(result.getDepth()).isGreaterThan(0);
+        assertThat(elapsedMillis).isLessThan(2000);
+    }
+
+    @Test
+    public void selectiveSearchAgreesWithFullWidthSearchOnWinningCapture() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        Searcher fullWidth = new Searcher();
+        fullWidth.setOptions(SearchOptions.allDisabled());
+
+        // Act
+        SearchResult selective = new Searcher().search(game, SearchLimits.forDepth(6));
+        SearchResult exhaustive = fullWidth.search(game, SearchLimits.forDepth(6));
+
+        // Assert
+        assertThat(selective.getBestMove()).isEqualTo(exhaustive.getBestMove());
+        assertThat(selective.getNodes()).isLessThan(exhaustive.getNodes());
+    }
+}
@@ -0,0 +1,61 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.PackedMove;
+import training.chessington.model.pieces.Piece;
+
+import static org.assertj.core.api.Assertions.*;
+import static training.chessington.model.MoveNotation.parseSquare;
+
+public class StaticExchangeTest {
+
+    @Test
+    public void pawnTakingDefendedKnightWinsKnightForPawn() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/2p5/3n4/4P3/8/8/4K3 w - - 0 1");
+
+        // Act
+        int gain = StaticExchange.evaluate(game.getBoard(), PackedMove.of(parseSquare("e4"), parseSquare("d5"), PackedMove.CAPTURE), new int[StaticExchange.MAX_EXCHANGES]);
+
+        // Assert
+        assertThat(gain).isEqualTo(Evaluator.pieceValue(Piece.PieceType.KNIGHT) - 100);
+    }
+
+    @Test
+    public void queenTakingDefendedPawnLosesQueenForPawn() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/3p4/4p3/8/8/8/4QK2 w - - 0 1");
+
+        // Act
+        int gain = StaticExchange.evaluate(game.getBoard(), PackedMove.of(parseSquare("e1"), parseSquare("e5"), PackedMove.CAPTURE), new int[StaticExchange.MAX_EXCHANGES]);
+
+        // Assert
+        assertThat(gain).isEqualTo(100 - 900);
+    }
+
+    @Test
+    public void rookBehindRookJoinsExchange() {
+        // Arrange
+        Game game = Fen.parse("3rk3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1");
+
+        // Act
+        int gain = StaticExchange.evaluate(game.getBoard(), PackedMove.of(parseSquare("d2"), parseSquare("d5"), PackedMove.CAPTURE), new int[StaticExchange.MAX_EXCHANGES]);
+
+        // Assert
+        assertThat(gain).isEqualTo(100 - 500 + 500 - 500);
+    }
+
+    @Test
+    public void quiescenceStopsShallowSearchGrabbingDefendedPawn() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/3p4/4p3/8/8/8/4QK2 w - - 0 1");
+
+        // Act
+        SearchResult result = new Searcher().search(game, SearchLimits.forDepth(1));
+
+        // Assert
+        assertThat(result.getBestMove()).isNotEqualTo(PackedMove.of(parseSquare("e1"), parseSquare("e5"), PackedMove.CAPTURE));
+    }
+}
@@ -0,0 +1,121 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+import training.chessington.model.MoveList;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TimeManagerTest {
+
+    private static final int MOVE_A = 0x0C34;
+    private static final int MOVE_B = 0x0D35;
+
+    @Test
+    public void clockLimitsStayWellInsideRemainingTime() {
+        // Arrange
+        TimeManager timeManager = TimeManager.forClock(60_000, 1_000, 0);
+
+        // Act
+        long soft = timeManager.getSoftLimitMillis();
+        long hard = timeManager.getHardLimitMillis();
+
+        // Assert
+        assertThat(soft).isGreaterThan(0);
+        assertThat(hard).isGreaterThan(soft);
+        assertThat(hard).isLessThan(60_000 / 2);
+    }
+
+    @Test
+    public void hugeTimeLimitsDoNotOverflowIntoAnExpiredDeadline() {
+        // Arrange
+        TimeManager moveTime = TimeManager.forLimits(SearchLimits.forTime(Long.MAX_VALUE / 1_000));
+        TimeManager clock = TimeManager.forClock(Long.MAX_VALUE / 2, 0, 0);
+
+        // Act
+        boolean moveTimeExpired = moveTime.isHardLimitReached();
+        boolean clockExpired = clock.isHardLimitReached();
+
+        // Assert
+        assertThat(moveTimeExpired).isFalse();
+        assertThat(clockExpired).isFalse();
+    }
+
+    @Test
+    public void lastMoveBeforeTimeControlMayUseMostOfTheClock() {
+        // Arrange
+        TimeManager timeManager = TimeManager.forClock(10_000, 0, 1);
+
+        // Act
+        long hard = timeManager.getHardLimitMillis();
+
+        // Assert
+        assertThat(hard).isGreaterThan(5_000);
+        assertThat(hard).isLessThan(10_000);
+    }
+
+    @Test
+    public void stableBestMoveShrinksSoftLimit() {
+        // Arrange
+        TimeManager timeManager = TimeManager.forClock(60_000, 0, 0);
+        long baseSoftLimit = timeManager.getSoftLimitMillis();
+
+        // Act
+        for (int iteration = 0; iteration < 8; iteration++) {
+            timeManager.onIterationComplete(MOVE_A, 20);
+        }
+
+        // Assert
+        assertThat(timeManager.getSoftLimitMillis()).isLessThan(baseSoftLimit);
+    }
+
+    @Test
+    public void changingBestMoveAndFallingScoreStretchSoftLimit() {
+        // Arrange
+        TimeManager timeManager = TimeManager.forClock(60_000, 0, 0);
+        long baseSoftLimit = timeManager.getSoftLimitMillis();
+        timeManager.onIterationComplete(MOVE_A, 50);
+        timeManager.onIterationComplete(MOVE_A, 50);
+
+        // Act
+        timeManager.onIterationComplete(MOVE_B, 50);
+        long changedOnlyLimit = timeManager.getSoftLimitMillis();
+        timeManager.onIterationComplete(MOVE_A, -100);
+
+        // Assert
+        assertThat(changedOnlyLimit).isGreaterThan(baseSoftLimit);
+        assertThat(timeManager.getSoftLimitMillis()).isGreaterThan(changedOnlyLimit);
+        assertThat(timeManager.getSoftLimitMillis()).isLessThanOrEqualTo(timeManager.getHardLimitMillis());
+    }
+
+    @Test
+    public void fixedMoveTimeNeverStopsBetweenIterations() {
+        // Arrange
+        TimeManager timeManager = TimeManager.forLimits(SearchLimits.forTime(0));
+
+        // Act
+        boolean stop = timeManager.onIterationComplete(MOVE_A, 0);
+
+        // Assert
+        assertThat(stop).isFalse();
+        assertThat(timeManager.isHardLimitReached()).isTrue();
+    }
+
+    @Test
+    public void searchOnShortClockReturnsLegalMoveInTime() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+
+        // Act
+        long start = System.nanoTime();
+        SearchResult result = new Searcher().search(game, SearchLimits.forClock(3_000, 0, 0));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        MoveList legalMoves = new MoveList();
+        game.generateLegalMoves(legalMoves);
+        assertThat(legalMoves.contains(result.getBestMove())).isTrue();
+        assertThat(elapsedMillis).isLessThan(1_000);
+    }
+}
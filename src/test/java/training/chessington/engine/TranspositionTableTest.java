@@ -0,0 +1,72 @@
+package training.chessington.engine;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    private static final long HASH = 0x1234567890ABCDEFL;
+
+    @Test
+    public void storedEntryRoundTripsAllFields() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+
+        // Act
+        table.store(HASH, 7, TranspositionTable.BOUND_LOWER, -1234, 0x5ABCD);
+        long entry = table.probe(HASH);
+
+        // Assert
+        assertThat(entry).isNotEqualTo(TranspositionTable.NOT_FOUND);
+        assertThat(TranspositionTable.depth(entry)).isEqualTo(7);
+        assertThat(TranspositionTable.bound(entry)).isEqualTo(TranspositionTable.BOUND_LOWER);
+        assertThat(TranspositionTable.score(entry)).isEqualTo(-1234);
+        assertThat(TranspositionTable.move(entry)).isEqualTo(0x5ABCD);
+    }
+
+    @Test
+    public void probeMissesForDifferentHash() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+
+        // Act
+        table.store(HASH, 3, TranspositionTable.BOUND_EXACT, 10, 1);
+
+        // Assert
+        assertThat(table.probe(HASH ^ 1L << 40)).isEqualTo(TranspositionTable.NOT_FOUND);
+    }
+
+    @Test
+    public void shallowerEntryForAnotherPositionDoesNotEvictDeeperOne() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+        long otherHashInSameBucket = HASH ^ 1L << 50;
+
+        // Act
+        table.store(HASH, 9, TranspositionTable.BOUND_EXACT, 50, 1);
+        table.store(otherHashInSameBucket, 2, TranspositionTable.BOUND_EXACT, 60, 2);
+
+        // Assert
+        assertThat(TranspositionTable.depth(table.probe(HASH))).isEqualTo(9);
+        assertThat(TranspositionTable.depth(table.probe(otherHashInSameBucket))).isEqualTo(2);
+    }
+
+    @Test
+    public void searchWithSharedTableFindsSameMateAgain() {
+        // Arrange
+        TranspositionTable table = new TranspositionTable(1);
+        Searcher searcher = new Searcher(table);
+        Game game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+
+        // Act
+        SearchResult first = searcher.search(game, SearchLimits.forDepth(4));
+        SearchResult second = searcher.search(game, SearchLimits.forDepth(4));
+
+        // Assert
+        assertThat(second.getBestMove()).isEqualTo(first.getBestMove());
+        assertThat(second.getScore()).isEqualTo(Searcher.MATE - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package training.chessington.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class AttacksTest {
+
+    private static long squares(Coordinates... coordinates) {
+        long mask = 0;
+        for (Coordinates coords : coordinates) {
+            mask |= 1L << coords.toSquare();
+        }
+        return mask;
+    }
+
+    @Test
+    public void rookAttacksStopAtFirstBlockerInEachDirection() {
+        // Arrange
+        Coordinates rook = new Coordinates(4, 3);
+        long occupancy = squares(rook, new Coordinates(2, 3), new Coordinates(4, 6), new Coordinates(7, 3));
+
+        // Act
+        long attacks = Attacks.rookAttacks(rook.toSquare(), occupancy);
+
+        // Assert
+        assertThat(attacks).isEqualTo(squares(
+                new Coordinates(3, 3), new Coordinates(2, 3),
+                new Coordinates(5, 3), new Coordinates(6, 3), new Coordinates(7, 3),
+                new Coordinates(4, 4), new Coordinates(4, 5), new Coordinates(4, 6),
+                new Coordinates(4, 2), new Coordinates(4, 1), new Coordinates(4, 0)
+        ));
+    }
+
+    @Test
+    public void bishopAttacksOnEmptyBoardReachTheEdges() {
+        // Arrange
+        Coordinates bishop = new Coordinates(7, 2);
+
+        // Act
+        long attacks = Attacks.bishopAttacks(bishop.toSquare(), 0);
+
+        // Assert
+        assertThat(attacks).isEqualTo(squares(
+                new Coordinates(6, 1), new Coordinates(5, 0),
+                new Coordinates(6, 3), new Coordinates(5, 4), new Coordinates(4, 5), new Coordinates(3, 6), new Coordinates(2, 7)
+        ));
+    }
+
+    @Test
+    public void queenAttacksAreUnionOfRookAndBishopAttacks() {
+        // Arrange
+        Coordinates queen = new Coordinates(3, 3);
+        long occupancy = squares(queen, new Coordinates(1, 1), new Coordinates(3, 5), new Coordinates(6, 3));
+
+        // Act
+        long attacks = Attacks.queenAttacks(queen.toSquare(), occupancy);
+
+        // Assert
+        assertThat(attacks).isEqualTo(Attacks.rookAttacks(queen.toSquare(), occupancy) | Attacks.bishopAttacks(queen.toSquare(), occupancy));
+        assertThat(attacks & squares(new Coordinates(0, 0), new Coordinates(3, 6), new Coordinates(7, 3))).isZero();
+    }
+}
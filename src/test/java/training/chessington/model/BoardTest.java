@@ -1,7 +1,10 @@
 package training.chessington.model;
 
 import org.junit.Test;
+import training.chessington.model.pieces.Knight;
+import training.chessington.model.pieces.Pawn;
 import training.chessington.model.pieces.Piece;
+import training.chessington.model.pieces.Rook;
 
 import static training.chessington.model.pieces.Piece.PieceType.PAWN;
 import static training.chessington.model.pieces.PieceAssert.*;
@@ -47,4 +50,50 @@ public class BoardTest {
         assertThat(board.get(from)).isNull();
         assertThat(board.get(to)).isColour(PlayerColour.WHITE).isPiece(PAWN);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void pawnsAttackDiagonallyButNotForwards() {
+        // Arrange
+        Board board = Board.empty();
+        board.placePiece(new Coordinates(4, 4), new Pawn(PlayerColour.BLACK));
+
+        // Act
+        boolean diagonalAttacked = board.isSquareAttackedBy(new Coordinates(5, 3).toSquare(), PlayerColour.BLACK);
+        boolean forwardAttacked = board.isSquareAttackedBy(new Coordinates(5, 4).toSquare(), PlayerColour.BLACK);
+
+        // Assert
+        assertThat(diagonalAttacked).isTrue();
+        assertThat(forwardAttacked).isFalse();
+    }
+
+    @Test
+    public void slidingAttacksAreBlockedByOtherPieces() {
+        // Arrange
+        Board board = Board.empty();
+        board.placePiece(new Coordinates(0, 0), new Rook(PlayerColour.WHITE));
+        board.placePiece(new Coordinates(0, 3), new Knight(PlayerColour.BLACK));
+
+        // Act
+        boolean beforeBlocker = board.isSquareAttackedBy(new Coordinates(0, 2).toSquare(), PlayerColour.WHITE);
+        boolean behindBlocker = board.isSquareAttackedBy(new Coordinates(0, 5).toSquare(), PlayerColour.WHITE);
+
+        // Assert
+        assertThat(beforeBlocker).isTrue();
+        assertThat(behindBlocker).isFalse();
+    }
+
+    @Test
+    public void offBoardCoordinatesAreRejectedRatherThanWrappedOntoAnotherSquare() {
+        // Arrange - column 8 of row 0 would otherwise wrap onto row 1, column 0, which holds a black pawn
+        Board board = Board.forNewGame();
+        Coordinates offBoard = new Coordinates(0, 8);
+
+        // Act
+        Throwable emptyCheck = catchThrowable(() -> board.squareIsEmpty(offBoard));
+        Throwable colourCheck = catchThrowable(() -> board.squareContainsPieceOfColour(offBoard, PlayerColour.BLACK));
+
+        // Assert
+        assertThat(emptyCheck).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+        assertThat(colourCheck).isInstanceOf(ArrayIndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package training.chessington.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class FenTest {
+
+    @Test
+    public void startingPositionRoundTrips() {
+        // Arrange
+        Game game = Game.newGame();
+
+        // Act
+        String fen = game.toFen();
+
+        // Assert
+        assertThat(fen).isEqualTo(Fen.STARTING_POSITION);
+    }
+
+    @Test
+    public void positionWithEnPassantPartialCastlingAndClocksRoundTrips() {
+        // Arrange
+        String fen = "r3k2r/p1pp1pb1/bn2Qnp1/2qPN3/1p2P3/2N5/PPPB1PPP/R3K2R b Kq e3 12 34";
+
+        // Act
+        Game game = Game.fromFen(fen);
+
+        // Assert
+        assertThat(game.getGameInfo().getNextPlayer()).isEqualTo(PlayerColour.BLACK);
+        assertThat(game.getFlags().getCastlingRights()).isEqualTo(Flags.WHITE_KINGSIDE_CASTLE | Flags.BLACK_QUEENSIDE_CASTLE);
+        assertThat(game.getFlags().getEnPassantSquareIndex()).isEqualTo(44);
+        assertThat(game.getGameInfo().getHalfmoveClock()).isEqualTo(12);
+        assertThat(game.getGameInfo().getFullmoveNumber()).isEqualTo(34);
+        assertThat(game.toFen()).isEqualTo(fen);
+    }
+
+    @Test
+    public void missingMoveClocksDefaultToStartOfGame() {
+        // Arrange
+        Game game = Game.fromFen("8/8/8/8/8/8/8/K6k w - -");
+
+        // Act
+        String fen = game.toFen();
+
+        // Assert
+        assertThat(fen).isEqualTo("8/8/8/8/8/8/8/K6k w - - 0 1");
+    }
+
+    @Test
+    public void malformedFenIsRejected() {
+        // Arrange
+        String[] malformed = {
+                "8/8/8/8/8/8/8/K6k x - - 0 1",
+                "8/8/8/8/8/8/8/K6 w - - 0 1",
+                "8/8/8/8/8/8/8/K6k w KX - 0 1",
+                "8/8/8/8/8/8/8/K6k w - - a 1",
+                "8/8/8/8/8/8/8/K6k w - - 0 1x",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 1 garbage",
+                "4k3/8/8/8/8/8/8/4K3 w - - 0 x",
+                "4k3/8/8/8/8/8/8/4K3 w - - x",
+                "4k3/88/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K3/8 w - - 0 1",
+                "4k3/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/8/8/8/8/4K2 w - - 0 1",
+                "4k3/8/8/8/4P3/8/8/4K3 w - e4 0 1",
+                "4k3/8/8/8/4P3/8/8/4K3 b - e6 0 1",
+        };
+
+        // Act
+        int rejected = 0;
+        for (String fen : malformed) {
+            try {
+                Game.fromFen(fen);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+
+        // Assert
+        assertThat(rejected).isEqualTo(malformed.length);
+    }
+
+    @Test
+    public void enPassantSquareIsOnlyAcceptedBehindPawnThatCanHaveJustMoved() {
+        // Arrange
+        String[] impossible = {
+                "4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1",
+                "4k3/4p3/8/3Pp3/8/8/8/4K3 w - e6 0 1",
+                "4k3/8/4n3/3Pp3/8/8/8/4K3 w - e6 0 1",
+        };
+
+        // Act
+        int rejected = 0;
+        for (String fen : impossible) {
+            try {
+                Game.fromFen(fen);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        Game possible = Game.fromFen("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1");
+
+        // Assert
+        assertThat(rejected).isEqualTo(impossible.length);
+        assertThat(possible.getFlags().getEnPassantSquareIndex()).isEqualTo(20);
+    }
+}
@@ -8,6 +8,7 @@ import training.chessington.model.pieces.Piece;
 import training.chessington.model.pieces.Rook;
 
 import java.util.List;
+import java.util.Optional;
 
 import static training.chessington.model.pieces.PieceAssert.*;
 import static org.assertj.core.api.Assertions.*;
@@ -177,4 +178,90 @@ public class GameTest {
         // Assert
         assertThat(bishopMoves).isEmpty();
     }
+
+    @Test
+    public void unmakeMoveRestoresEnPassantCapture() {
+        // Arrange
+        Board board = Board.empty();
+        Coordinates whiteCoordinates = new Coordinates(3, 4);
+        board.placePiece(whiteCoordinates, new Pawn(PlayerColour.WHITE));
+        Coordinates blackCoordinates = new Coordinates(3, 3);
+        board.placePiece(blackCoordinates, new Pawn(PlayerColour.BLACK));
+
+        Flags flags = Flags.forNewGame();
+        flags.setEnPassantSquare(Optional.of(new Coordinates(2, 3)));
+        Game game = new Game(board, flags);
+        int capture = PackedMove.of(whiteCoordinates.toSquare(), new Coordinates(2, 3).toSquare(), PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+
+        // Act
+        game.makeMove(capture);
+        game.unmakeMove();
+
+        // Assert
+        assertThat(game.getBoard().get(whiteCoordinates)).isPiece(Piece.PieceType.PAWN).isColour(PlayerColour.WHITE);
+        assertThat(game.getBoard().get(blackCoordinates)).isPiece(Piece.PieceType.PAWN).isColour(PlayerColour.BLACK);
+        assertThat(game.getBoard().get(new Coordinates(2, 3))).isNull();
+        assertThat(game.getFlags().getEnPassantSquare()).contains(new Coordinates(2, 3));
+        assertThat(game.getGameInfo().getNextPlayer()).isEqualTo(PlayerColour.WHITE);
+    }
+
+    @Test
+    public void unmakeMoveRestoresCastlingRookAndRights() {
+        // Arrange
+        Board board = Board.forNewGame();
+        board.obliterate(new Coordinates(7, 5));
+        board.obliterate(new Coordinates(7, 6));
+        Game game = new Game(board, Flags.forNewGame());
+        int castle = PackedMove.of(new Coordinates(7, 4).toSquare(), new Coordinates(7, 6).toSquare(), PackedMove.CASTLING);
+
+        // Act
+        game.makeMove(castle);
+        game.unmakeMove();
+
+        // Assert
+        assertThat(game.pieceAt(7, 4)).isPiece(Piece.PieceType.KING);
+        assertThat(game.pieceAt(7, 7)).isPiece(Piece.PieceType.ROOK);
+        assertThat(game.pieceAt(7, 5)).isNull();
+        assertThat(game.getFlags().getCastlingRights()).isEqualTo(Flags.ALL_CASTLING);
+    }
+
+    @Test
+    public void nullMovePassesTurnAndUnmakeRestoresPosition() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        long hashBefore = game.positionHash();
+
+        // Act
+        game.makeNullMove();
+        PlayerColour playerAfterNullMove = game.getGameInfo().getNextPlayer();
+        int enPassantAfterNullMove = game.getFlags().getEnPassantSquareIndex();
+        game.unmakeMove();
+
+        // Assert
+        assertThat(playerAfterNullMove).isEqualTo(PlayerColour.BLACK);
+        assertThat(enPassantAfterNullMove).isEqualTo(Flags.NO_SQUARE);
+        assertThat(game.positionHash()).isEqualTo(hashBefore);
+        assertThat(game.getGameInfo().getNextPlayer()).isEqualTo(PlayerColour.WHITE);
+    }
+
+    @Test
+    public void moveClocksAdvanceResetAndUnmake() {
+        // Arrange
+        Game game = Game.fromFen("4k3/4p3/8/8/8/8/8/4K1N1 w - - 7 20");
+        int knightMove = PackedMove.of(62, 45, 0);
+        int pawnMove = PackedMove.of(12, 28, PackedMove.DOUBLE_PAWN_PUSH);
+
+        // Act
+        game.makeMove(knightMove);
+        String afterKnightMove = game.toFen();
+        game.makeMove(pawnMove);
+        String afterPawnMove = game.toFen();
+        game.unmakeMove();
+        game.unmakeMove();
+
+        // Assert
+        assertThat(afterKnightMove).isEqualTo("4k3/4p3/8/8/8/5N2/8/4K3 b - - 8 20");
+        assertThat(afterPawnMove).isEqualTo("4k3/8/8/4p3/8/5N2/8/4K3 w - e6 0 21");
+        assertThat(game.toFen()).isEqualTo("4k3/4p3/8/8/8/8/8/4K1N1 w - - 7 20");
+    }
 }
@@ -0,0 +1,109 @@
+package training.chessington.model;
+
+import org.junit.Test;
+import training.chessington.model.pieces.King;
+import training.chessington.model.pieces.Knight;
+import training.chessington.model.pieces.Pawn;
+import training.chessington.model.pieces.Queen;
+import training.chessington.model.pieces.Rook;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class MoveGeneratorTest {
+
+    @Test
+    public void pinnedRookCanOnlyMoveAlongPinRay() {
+        // Arrange
+        Board board = Board.empty();
+        Coordinates kingCoordinates = new Coordinates(7, 4);
+        board.placePiece(kingCoordinates, new King(PlayerColour.WHITE));
+        Coordinates rookCoordinates = new Coordinates(5, 4);
+        board.placePiece(rookCoordinates, new Rook(PlayerColour.WHITE));
+        board.placePiece(new Coordinates(1, 4), new Queen(PlayerColour.BLACK));
+        Game game = new Game(board, Flags.forNewGame().withNoSpecialMoves());
+
+        // Act
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, moves);
+
+        // Assert
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.from(moves.get(i)) == rookCoordinates.toSquare()) {
+                assertThat(Coordinates.fromSquare(PackedMove.to(moves.get(i))).getCol()).isEqualTo(4);
+            }
+        }
+        assertThat(moves.contains(PackedMove.of(rookCoordinates.toSquare(), new Coordinates(1, 4).toSquare(), PackedMove.CAPTURE))).isTrue();
+    }
+
+    @Test
+    public void onlyEvasionsAreGeneratedInCheck() {
+        // Arrange
+        Board board = Board.empty();
+        Coordinates kingCoordinates = new Coordinates(7, 0);
+        board.placePiece(kingCoordinates, new King(PlayerColour.WHITE));
+        Coordinates knightCoordinates = new Coordinates(7, 6);
+        board.placePiece(knightCoordinates, new Knight(PlayerColour.WHITE));
+        board.placePiece(new Coordinates(3, 4), new Rook(PlayerColour.BLACK));
+        board.placePiece(new Coordinates(0, 0), new Rook(PlayerColour.BLACK));
+        Game game = new Game(board, Flags.forNewGame().withNoSpecialMoves());
+
+        // Act
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, moves);
+
+        // Assert
+        assertThat(MoveGenerator.isInCheck(game)).isTrue();
+        assertThat(moves.contains(PackedMove.of(kingCoordinates.toSquare(), new Coordinates(7, 1).toSquare(), 0))).isTrue();
+        assertThat(moves.contains(PackedMove.of(kingCoordinates.toSquare(), new Coordinates(6, 1).toSquare(), 0))).isTrue();
+        assertThat(moves.contains(PackedMove.of(knightCoordinates.toSquare(), new Coordinates(5, 7).toSquare(), 0))).isFalse();
+        assertThat(moves.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void enPassantIsIllegalWhenItExposesKingAlongRow() {
+        // Arrange
+        Board board = Board.empty();
+        board.placePiece(new Coordinates(3, 0), new King(PlayerColour.WHITE));
+        Coordinates whitePawnCoordinates = new Coordinates(3, 3);
+        board.placePiece(whitePawnCoordinates, new Pawn(PlayerColour.WHITE));
+        board.placePiece(new Coordinates(3, 4), new Pawn(PlayerColour.BLACK));
+        board.placePiece(new Coordinates(3, 7), new Rook(PlayerColour.BLACK));
+        Flags flags = Flags.forNewGame().withNoSpecialMoves();
+        flags.setEnPassantSquare(Optional.of(new Coordinates(2, 4)));
+        Game game = new Game(board, flags);
+
+        // Act
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, moves);
+
+        // Assert
+        assertThat(moves.contains(PackedMove.of(whitePawnCoordinates.toSquare(), new Coordinates(2, 4).toSquare(),
+                PackedMove.CAPTURE | PackedMove.EN_PASSANT))).isFalse();
+        assertThat(moves.contains(PackedMove.of(whitePawnCoordinates.toSquare(), new Coordinates(2, 3).toSquare(), 0))).isTrue();
+    }
+
+    @Test
+    public void captureGenerationMatchesCapturesAndPromotionsAmongLegalMoves() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1pPqpb1/bn2pnp1/4N3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        MoveList legalMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, legalMoves);
+
+        // Act
+        MoveList captures = new MoveList();
+        MoveGenerator.generateLegalCaptures(game, captures);
+
+        // Assert
+        int expected = 0;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) {
+                expected++;
+                assertThat(captures.contains(move)).isTrue();
+            }
+        }
+        assertThat(captures.size()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,147 @@
+package training.chessington.model;
+
+import org.junit.Test;
+import training.chessington.model.pieces.Piece;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static training.chessington.model.MoveNotation.parseSquare;
+
+public class MoveNotationTest {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            "4k3/8/8/2pP4/8/8/8/4K3 w - c6 0 1",
+            "6k1/8/1Q6/8/8/8/1Q3Q2/7K w - - 0 1",
+    };
+
+    private final MoveNotation notation = new MoveNotation();
+
+    @Test
+    public void uciNotationIncludesPromotionPiece() {
+        // Arrange
+        int move = PackedMove.of(8, 0, PackedMove.CAPTURE, Piece.PieceType.KNIGHT);
+
+        // Act
+        String uci = MoveNotation.toUci(move);
+
+        // Assert
+        assertThat(uci).isEqualTo("a7a8n");
+    }
+
+    @Test
+    public void everyLegalMoveRoundTripsThroughUciAndSan() {
+        for (String fen : POSITIONS) {
+            // Arrange
+            Game game = Fen.parse(fen);
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(moves);
+            Set<String> sans = new HashSet<>();
+
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+
+                // Act
+                String san = notation.toSan(game, move);
+                int fromSan = notation.parseSan(game, san);
+                int fromUci = notation.parseUci(game, MoveNotation.toUci(move));
+
+                // Assert
+                assertThat(fromSan).as("%s in %s", san, fen).isEqualTo(move);
+                assertThat(fromUci).as("%s in %s", san, fen).isEqualTo(move);
+                assertThat(sans.add(san)).as("%s is unique in %s", san, fen).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void sanUsesFileThenRankThenBothToDisambiguate() {
+        // Arrange
+        Game sameRank = Fen.parse("4k3/8/8/8/8/8/6K1/R6R w - - 0 1");
+        Game sameFile = Fen.parse("4k3/8/8/R7/8/8/6K1/R7 w - - 0 1");
+        Game both = Fen.parse("6k1/8/1Q6/8/8/8/1Q3Q2/7K w - - 0 1");
+
+        // Act
+        String byFile = notation.toSan(sameRank, PackedMove.of(parseSquare("a1"), parseSquare("d1"), 0));
+        String byRank = notation.toSan(sameFile, PackedMove.of(parseSquare("a1"), parseSquare("a3"), 0));
+        String byBoth = notation.toSan(both, PackedMove.of(parseSquare("b2"), parseSquare("d4"), 0));
+
+        // Assert
+        assertThat(byFile).isEqualTo("Rad1");
+        assertThat(byRank).isEqualTo("R1a3");
+        assertThat(byBoth).isEqualTo("Qb2d4");
+    }
+
+    @Test
+    public void pinnedPieceDoesNotCountForDisambiguation() {
+        // Arrange
+        Game game = Fen.parse("4k3/8/8/8/1b6/2N5/8/4K1N1 w - - 0 1");
+        int move = PackedMove.of(parseSquare("g1"), parseSquare("e2"), 0);
+
+        // Act
+        String san = notation.toSan(game, move);
+        int parsed = notation.parseSan(game, "Ne2");
+
+        // Assert
+        assertThat(san).isEqualTo("Ne2");
+        assertThat(parsed).isEqualTo(move);
+    }
+
+    @Test
+    public void sanMarksCheckMateAndPromotion() {
+        // Arrange
+        Game mate = Fen.parse("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+        Game promotion = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+
+        // Act
+        String mateSan = notation.toSan(mate, PackedMove.of(parseSquare("h5"), parseSquare("f7"), PackedMove.CAPTURE));
+        String promotionSan = notation.toSan(promotion, PackedMove.of(parseSquare("b7"), parseSquare("b8"), 0, Piece.PieceType.QUEEN));
+        String underpromotionSan = notation.toSan(promotion, PackedMove.of(parseSquare("b7"), parseSquare("b8"), 0, Piece.PieceType.KNIGHT));
+
+        // Assert
+        assertThat(mateSan).isEqualTo("Qxf7#");
+        assertThat(promotionSan).isEqualTo("b8=Q+");
+        assertThat(underpromotionSan).isEqualTo("b8=N");
+    }
+
+    @Test
+    public void parseRejectsAmbiguousAndIllegalMoves() {
+        // Arrange
+        Game game = Fen.parse("6k1/8/1Q6/8/8/8/1Q3Q2/7K w - - 0 1");
+
+        // Act
+        int ambiguous = notation.parseSan(game, "Qd4");
+        int illegal = notation.parseSan(game, "Kh2h3");
+        int uciIllegal = notation.parseUci(game, "a1h8");
+
+        // Assert
+        assertThat(ambiguous).isEqualTo(MoveNotation.AMBIGUOUS);
+        assertThat(illegal).isEqualTo(PackedMove.NONE);
+        assertThat(uciIllegal).isEqualTo(PackedMove.NONE);
+    }
+
+    @Test
+    public void squareNamesParseToBoardSquares() {
+        // Arrange
+        String[] names = {"a8", "h8", "e4", "a1", "h1"};
+
+        // Act
+        int[] squares = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            squares[i] = parseSquare(names[i]);
+        }
+
+        // Assert
+        assertThat(squares).containsExactly(0, 7, 36, 56, 63);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseSquareRejectsSquaresOffTheBoard() {
+        parseSquare("i9");
+    }
+}
@@ -0,0 +1,29 @@
+package training.chessington.model;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+public final class MoveTree {
+
+    private MoveTree() {
+    }
+
+    // Plays every line of legal moves to the given depth, running the check after each move is made
+    // and again after it is unmade, and asserting that unmaking restores the position
+    public static void playAllMovesToDepth(Game game, int depth, Consumer<Game> check) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            long before = game.positionHash();
+            game.makeMove(moves.get(i));
+            check.accept(game);
+            if (depth > 1) {
+                playAllMovesToDepth(game, depth - 1, check);
+            }
+            game.unmakeMove();
+            assertThat(game.positionHash()).isEqualTo(before);
+            check.accept(game);
+        }
+    }
+}
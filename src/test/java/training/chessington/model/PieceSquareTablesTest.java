@@ -0,0 +1,53 @@
+package training.chessington.model;
+
+import org.junit.Test;
+import training.chessington.model.pieces.Pieces;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PieceSquareTablesTest {
+
+    private static int[] fullSums(Board board) {
+        int[] sums = new int[3];
+        for (int code = 0; code < Pieces.COUNT; code++) {
+            for (long pieces = board.getPieces(code); pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                sums[0] += PieceSquareTables.midgame(code, square);
+                sums[1] += PieceSquareTables.endgame(code, square);
+                sums[2] += PieceSquareTables.phase(code);
+            }
+        }
+        return sums;
+    }
+
+    private static int[] runningSums(Board board) {
+        return new int[]{board.getMidgameScore(), board.getEndgameScore(), board.getPhase()};
+    }
+
+    private static void assertSumsMatch(Game game) {
+        assertThat(runningSums(game.getBoard())).isEqualTo(fullSums(game.getBoard()));
+    }
+
+    @Test
+    public void runningSumsMatchFullRecomputeThroughSpecialMoves() {
+        // Arrange - castling, en passant and promotions are all available within two plies
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        Game promotions = Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8");
+
+        // Act and Assert
+        MoveTree.playAllMovesToDepth(game, 2, PieceSquareTablesTest::assertSumsMatch);
+        MoveTree.playAllMovesToDepth(promotions, 2, PieceSquareTablesTest::assertSumsMatch);
+    }
+
+    @Test
+    public void startingPositionIsBalancedAtFullPhase() {
+        // Arrange
+        Board board = Board.forNewGame();
+
+        // Act
+        int[] sums = runningSums(board);
+
+        // Assert
+        assertThat(sums).containsExactly(0, 0, PieceSquareTables.MAX_PHASE);
+    }
+}
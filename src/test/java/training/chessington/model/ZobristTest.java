@@ -0,0 +1,75 @@
+package training.chessington.model;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ZobristTest {
+
+    private static long fullHash(Game game) {
+        return Zobrist.hash(game.getBoard(), game.getFlags(), game.getGameInfo().getNextPlayer());
+    }
+
+    private static void assertHashesMatch(Game game) {
+        assertThat(game.positionHash()).isEqualTo(fullHash(game));
+        assertThat(game.getBoard().getPawnHash()).isEqualTo(Zobrist.pawnHash(game.getBoard()));
+    }
+
+    @Test
+    public void incrementalHashMatchesFullHashThroughSpecialMoves() {
+        // Arrange - castling, en passant and promotions are all available within two plies
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        Game promotions = Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8");
+
+        // Act and Assert
+        MoveTree.playAllMovesToDepth(game, 2, ZobristTest::assertHashesMatch);
+        MoveTree.playAllMovesToDepth(promotions, 2, ZobristTest::assertHashesMatch);
+    }
+
+    @Test
+    public void transpositionsHaveTheSameHash() {
+        // Arrange
+        Game knightsFirst = Fen.parse(Fen.STARTING_POSITION);
+        Game pawnsFirst = Fen.parse(Fen.STARTING_POSITION);
+
+        // Act
+        knightsFirst.makeMove(PackedMove.of(62, 45, 0));
+        knightsFirst.makeMove(PackedMove.of(6, 21, 0));
+        knightsFirst.makeMove(PackedMove.of(52, 44, 0));
+        pawnsFirst.makeMove(PackedMove.of(52, 44, 0));
+        pawnsFirst.makeMove(PackedMove.of(6, 21, 0));
+        pawnsFirst.makeMove(PackedMove.of(62, 45, 0));
+
+        // Assert
+        assertThat(knightsFirst.positionHash()).isEqualTo(pawnsFirst.positionHash());
+    }
+
+    @Test
+    public void sideToMoveAndEnPassantChangeTheHash() {
+        // Arrange
+        Game afterSinglePush = Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq -");
+        Game afterDoublePush = Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3");
+        Game whiteToMove = Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq -");
+
+        // Assert
+        assertThat(afterSinglePush.positionHash()).isNotEqualTo(afterDoublePush.positionHash());
+        assertThat(afterSinglePush.positionHash()).isNotEqualTo(whiteToMove.positionHash());
+    }
+
+    @Test
+    public void knightShufflesAreDetectedAsRepetition() {
+        // Arrange
+        Game game = Fen.parse(Fen.STARTING_POSITION);
+
+        // Act
+        game.makeMove(PackedMove.of(62, 45, 0));
+        game.makeMove(PackedMove.of(6, 21, 0));
+        game.makeMove(PackedMove.of(45, 62, 0));
+        boolean repeatedBeforeReturning = game.isRepetition();
+        game.makeMove(PackedMove.of(21, 6, 0));
+
+        // Assert
+        assertThat(repeatedBeforeReturning).isFalse();
+        assertThat(game.isRepetition()).isTrue();
+    }
+}
@@ -201,4 +201,25 @@ public class KingTest {
         // Assert
         assertThat(moves).doesNotContain(new Move(kingCoordinates, kingCoordinates.plus(0, 2)));
     }
+
+    @Test
+    public void canCastleQueensideWhenOnlyRookPathIsThreatened() {
+        // Arrange
+        Board board = Board.forNewGame();
+        Coordinates kingCoordinates = new Coordinates(7, 4);
+        board.obliterate(new Coordinates(7, 1));
+        board.obliterate(new Coordinates(7, 2));
+        board.obliterate(new Coordinates(7, 3));
+        Game game = new Game(board, Flags.forNewGame());
+
+        // Attack the square the rook passes over, but not the king's path
+        board.obliterate(new Coordinates(6, 1));
+        board.placePiece(new Coordinates(3, 1), new Rook(PlayerColour.BLACK));
+
+        // Act
+        List<Move> moves = board.get(kingCoordinates).getAllowedMoves(kingCoordinates, game);
+
+        // Assert
+        assertThat(moves).contains(new Move(kingCoordinates, kingCoordinates.plus(0, -2)));
+    }
 }
@@ -7,6 +7,8 @@ import training.chessington.model.Flags;
 import training.chessington.model.Game;
 import training.chessington.model.InvalidMoveException;
 import training.chessington.model.Move;
+import training.chessington.model.MoveList;
+import training.chessington.model.PackedMove;
 import training.chessington.model.PlayerColour;
 
 import java.util.List;
@@ -391,4 +393,42 @@ public class PawnTest {
         // Assert
         assertThat(blackMoves).doesNotContain(new Move(blackCoordinates, whiteCoordinates.plus(-1, 0)));
     }
+
+    @Test
+    public void pawnReachingLastRowGeneratesEveryPromotion() {
+        // Arrange
+        Board board = Board.empty();
+        Piece pawn = new Pawn(PlayerColour.WHITE);
+        Coordinates coords = new Coordinates(1, 4);
+        board.placePiece(coords, pawn);
+        Game game = new Game(board, Flags.forNewGame());
+        MoveList moves = new MoveList();
+
+        // Act
+        pawn.generateMoves(coords.toSquare(), game, moves);
+
+        // Assert
+        int to = coords.plus(-1, 0).toSquare();
+        assertThat(moves.size()).isEqualTo(4);
+        assertThat(moves.contains(PackedMove.of(coords.toSquare(), to, 0, Piece.PieceType.QUEEN))).isTrue();
+        assertThat(moves.contains(PackedMove.of(coords.toSquare(), to, 0, Piece.PieceType.ROOK))).isTrue();
+        assertThat(moves.contains(PackedMove.of(coords.toSquare(), to, 0, Piece.PieceType.BISHOP))).isTrue();
+        assertThat(moves.contains(PackedMove.of(coords.toSquare(), to, 0, Piece.PieceType.KNIGHT))).isTrue();
+    }
+
+    @Test
+    public void promotionIsReportedAsASingleAllowedMove() {
+        // Arrange
+        Board board = Board.empty();
+        Piece pawn = new Pawn(PlayerColour.BLACK);
+        Coordinates coords = new Coordinates(6, 4);
+        board.placePiece(coords, pawn);
+        Game game = new Game(board, Flags.forNewGame());
+
+        // Act
+        List<Move> moves = pawn.getAllowedMoves(coords, game);
+
+        // Assert
+        assertThat(moves).containsExactly(new Move(coords, coords.plus(1, 0)));
+    }
 }
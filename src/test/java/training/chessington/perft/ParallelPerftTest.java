@@ -0,0 +1,76 @@
+package training.chessington.perft;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.Game;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class ParallelPerftTest {
+
+    @Test
+    public void parallelCountMatchesReferenceWithSharedTable() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+
+        // Act
+        long nodes;
+        try (ParallelPerft perft = new ParallelPerft(4, new PerftTable(4), 2)) {
+            nodes = perft.count(game, 4);
+        }
+
+        // Assert
+        assertThat(nodes).isEqualTo(4085603);
+    }
+
+    @Test
+    public void parallelCountLeavesOriginalGameUntouched() {
+        // Arrange
+        Game game = Fen.parse(Fen.STARTING_POSITION);
+        long hashBefore = game.positionHash();
+
+        // Act
+        long nodes;
+        try (ParallelPerft perft = new ParallelPerft(2, null, 1)) {
+            nodes = perft.count(game, 4);
+        }
+
+        // Assert
+        assertThat(nodes).isEqualTo(197281);
+        assertThat(game.positionHash()).isEqualTo(hashBefore);
+    }
+
+    @Test
+    public void parallelDivideMatchesSequentialDivide() {
+        // Arrange
+        Game game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+        Map<Integer, Long> expected = new Perft(game.createCopy()).divide(3);
+
+        // Act
+        Map<Integer, Long> divide;
+        try (ParallelPerft perft = new ParallelPerft(3, new PerftTable(1), 2)) {
+            divide = perft.divide(game, 3);
+        }
+
+        // Assert
+        assertThat(divide).isEqualTo(expected);
+        assertThat(divide.keySet()).containsExactlyElementsOf(expected.keySet());
+        assertThat(divide.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(97862);
+    }
+
+    @Test
+    public void tableReturnsStoredCountOnlyForMatchingDepth() {
+        // Arrange
+        PerftTable table = new PerftTable(1);
+
+        // Act
+        table.store(0x1234567890ABCDEFL, 3, 8902);
+
+        // Assert
+        assertThat(table.probe(0x1234567890ABCDEFL, 3)).isEqualTo(8902);
+        assertThat(table.probe(0x1234567890ABCDEFL, 4)).isEqualTo(-1);
+        assertThat(table.probe(0x1234567890ABCDEEL, 3)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,107 @@
+package training.chessington.perft;
+
+import org.junit.Test;
+import training.chessington.model.Fen;
+import training.chessington.model.MoveNotation;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PerftTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+
+    private static long perft(String fen, int depth) {
+        return new Perft(Fen.parse(fen)).count(depth);
+    }
+
+    @Test
+    public void initialPosition() {
+        assertThat(perft(Fen.STARTING_POSITION, 1)).isEqualTo(20);
+        assertThat(perft(Fen.STARTING_POSITION, 2)).isEqualTo(400);
+        assertThat(perft(Fen.STARTING_POSITION, 3)).isEqualTo(8902);
+        assertThat(perft(Fen.STARTING_POSITION, 4)).isEqualTo(197281);
+    }
+
+    @Test
+    public void kiwipete() {
+        assertThat(perft(KIWIPETE, 1)).isEqualTo(48);
+        assertThat(perft(KIWIPETE, 2)).isEqualTo(2039);
+        assertThat(perft(KIWIPETE, 3)).isEqualTo(97862);
+    }
+
+    @Test
+    public void rookAndPawnEndgame() {
+        assertThat(perft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -", 5)).isEqualTo(674624);
+    }
+
+    @Test
+    public void promotionsAndCastlingUnderAttack() {
+        assertThat(perft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4)).isEqualTo(422333);
+    }
+
+    @Test
+    public void promotionWithDiscoveredChecks() {
+        assertThat(perft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3)).isEqualTo(62379);
+    }
+
+    @Test
+    public void symmetricalMiddlegame() {
+        assertThat(perft("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 3)).isEqualTo(89890);
+    }
+
+    @Test
+    public void enPassantEdgeCases() {
+        assertThat(perft("3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6)).isEqualTo(1134888);
+        assertThat(perft("8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6)).isEqualTo(1015133);
+        assertThat(perft("8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6)).isEqualTo(1440467);
+    }
+
+    @Test
+    public void castlingEdgeCases() {
+        assertThat(perft("5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6)).isEqualTo(661072);
+        assertThat(perft("3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6)).isEqualTo(803711);
+        assertThat(perft("r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4)).isEqualTo(1274206);
+        assertThat(perft("r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4)).isEqualTo(1720476);
+    }
+
+    @Test
+    public void promotionEdgeCases() {
+        assertThat(perft("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6)).isEqualTo(3821001);
+        assertThat(perft("4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6)).isEqualTo(217342);
+        assertThat(perft("8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6)).isEqualTo(92683);
+    }
+
+    @Test
+    public void checkAndStalemateEdgeCases() {
+        assertThat(perft("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5)).isEqualTo(1004658);
+        assertThat(perft("K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6)).isEqualTo(2217);
+        assertThat(perft("8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7)).isEqualTo(567584);
+        assertThat(perft("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4)).isEqualTo(23527);
+    }
+
+    @Test
+    public void divideSumsToPerftOfTheNextDepth() {
+        // Arrange
+        Perft perft = new Perft(Fen.parse(KIWIPETE));
+
+        // Act
+        Map<Integer, Long> divide = perft.divide(2);
+
+        // Assert
+        assertThat(divide).hasSize(48);
+        assertThat(divide.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(2039);
+        assertThat(divide.keySet().stream().map(MoveNotation::toUci)).contains("e1g1", "e1c1", "d5e6", "e5f7");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void divideRejectsDepthZero() {
+        new Perft(Fen.parse(KIWIPETE)).divide(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countRejectsNegativeDepth() {
+        new Perft(Fen.parse(KIWIPETE)).count(-1);
+    }
+}
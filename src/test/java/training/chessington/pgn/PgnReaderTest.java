@@ -0,0 +1,191 @@
+package training.chessington.pgn;
+
+import org.junit.Test;
+import training.chessington.model.pieces.Result;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PgnReaderTest {
+
+    private static final String SCHOLARS_MATE = "[Event \"Casual \\\"blitz\\\"\"]\n"
+            + "[White \"Alice\"]\n"
+            + "[Black \"Bob\"]\n"
+            + "[Result \"1-0\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Bc4 {aiming at f7} Nc6 (2... Nf6 3. d3) 3. Qh5 $2 Nf6?? 4. Qxf7# 1-0\n"
+            + "\n";
+
+    @Test
+    public void readsTagsMovesAndResult() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor(SCHOLARS_MATE);
+        PgnGame game = new PgnGame();
+
+        // Act
+        boolean read = reader.next(game);
+
+        // Assert
+        assertThat(read).isTrue();
+        assertThat(game.isValid()).isTrue();
+        assertThat(game.getTagCount()).isEqualTo(4);
+        assertThat(game.getTag("Event")).isEqualTo("Casual \"blitz\"");
+        assertThat(game.getTag("Black")).isEqualTo("Bob");
+        assertThat(game.getTag("Site")).isNull();
+        assertThat(game.getMoves().size()).isEqualTo(7);
+        assertThat(game.getResult()).isEqualTo(Result.WHITE_WINS);
+        assertThat(game.getFinalPosition().toFen()).isEqualTo("r1bqkb1r/pppp1Qpp/2n2n2/4p3/2B1P3/8/PPPP1PPP/RNB1K1NR b KQkq - 0 4");
+        assertThat(reader.next(game)).isFalse();
+    }
+
+    @Test
+    public void illegalMoveIsReportedAndNextGameStillRead() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor("[Event \"Broken\"]\n\n1. e4 e5 2. Ke3 Nc6 1/2-1/2\n\n" + SCHOLARS_MATE);
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.next(game);
+        String error = game.getError();
+        int movesBeforeError = game.getMoves().size();
+        reader.next(game);
+
+        // Assert
+        assertThat(error).isEqualTo("Illegal move Ke3 at ply 3");
+        assertThat(movesBeforeError).isEqualTo(2);
+        assertThat(game.getGameNumber()).isEqualTo(2);
+        assertThat(game.isValid()).isTrue();
+    }
+
+    @Test
+    public void moveNumbersWithoutSpaceBeforeMoveAreRead() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor("1.e4 e5 2.Nf3 Nc6 *\n\n1.e4 1...e5 2.Nf3 2...Nc6 *\n");
+        PgnGame compact = new PgnGame();
+        PgnGame withBlackNumbers = new PgnGame();
+
+        // Act
+        reader.next(compact);
+        reader.next(withBlackNumbers);
+
+        // Assert
+        String expected = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3";
+        assertThat(compact.isValid()).isTrue();
+        assertThat(compact.getMoves().size()).isEqualTo(4);
+        assertThat(compact.getFinalPosition().toFen()).isEqualTo(expected);
+        assertThat(withBlackNumbers.isValid()).isTrue();
+        assertThat(withBlackNumbers.getMoves().size()).isEqualTo(4);
+        assertThat(withBlackNumbers.getFinalPosition().toFen()).isEqualTo(expected);
+    }
+
+    @Test
+    public void ambiguousMoveIsRejectedAndDisambiguatedMoveAccepted() throws IOException {
+        // Arrange
+        String position = "[FEN \"4k3/8/8/8/8/8/4K3/R6R w - - 0 1\"]\n[SetUp \"1\"]\n\n";
+        PgnReader reader = readerFor(position + "1. Rd1 *\n\n" + position + "1. Rhd1 *\n");
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.next(game);
+        String ambiguousError = game.getError();
+        reader.next(game);
+
+        // Assert
+        assertThat(ambiguousError).isEqualTo("Ambiguous move Rd1 at ply 1");
+        assertThat(game.isValid()).isTrue();
+        assertThat(game.getFinalPosition().toFen()).isEqualTo("4k3/8/8/8/8/8/4K3/R2R4 b - - 1 1");
+    }
+
+    @Test
+    public void castlingWithZerosAndPromotionAreResolved() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor("[FEN \"4k3/1P6/8/8/8/8/8/4K2R w K - 0 1\"]\n\n1. 0-0 Kd7 2. b8=N+ Kc7 3. Nd7 *\n");
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.next(game);
+
+        // Assert
+        assertThat(game.isValid()).isTrue();
+        assertThat(game.getResult()).isEqualTo(Result.IN_PROGRESS);
+        assertThat(game.getFinalPosition().toFen()).isEqualTo("8/2kN4/8/8/8/8/8/5RK1 b - - 2 3");
+    }
+
+    @Test
+    public void resultContradictingCheckmateIsReported() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor("1. f3 e5 2. g4 Qh4# 1/2-1/2\n");
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.next(game);
+
+        // Assert
+        assertThat(game.isValid()).isFalse();
+        assertThat(game.getError()).contains("expected BLACK_WINS");
+    }
+
+    @Test
+    public void missingTerminationIsReportedBeforeNextGame() throws IOException {
+        // Arrange
+        PgnReader reader = readerFor("1. d4 d5\n\n" + SCHOLARS_MATE);
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.next(game);
+        String error = game.getError();
+        reader.next(game);
+
+        // Assert
+        assertThat(error).isEqualTo("Missing game termination marker");
+        assertThat(game.isValid()).isTrue();
+        assertThat(game.getTag("White")).isEqualTo("Alice");
+    }
+
+    @Test
+    public void streamLongerThanBufferReadsEveryGame() throws IOException {
+        // Arrange
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            pgn.append(SCHOLARS_MATE);
+        }
+        PgnReader reader = readerFor(pgn.toString());
+        PgnGame game = new PgnGame();
+
+        // Act
+        int valid = 0;
+        while (reader.next(game)) {
+            if (game.isValid()) {
+                valid++;
+            }
+        }
+
+        // Assert
+        assertThat(valid).isEqualTo(1000);
+    }
+
+    @Test
+    public void gamesReadFromBatchAreIdentifiedByOffsetNotNumber() throws IOException {
+        // Arrange
+        byte[] batch = SCHOLARS_MATE.getBytes(StandardCharsets.UTF_8);
+        PgnReader reader = new PgnReader();
+        PgnGame game = new PgnGame();
+
+        // Act
+        reader.load(batch, batch.length, 1000);
+        reader.next(game);
+
+        // Assert
+        assertThat(game.isValid()).isTrue();
+        assertThat(game.getOffset()).isEqualTo(1000);
+        assertThat(game.getGameNumber()).isEqualTo(0);
+    }
+
+    private static PgnReader readerFor(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+    }
+}
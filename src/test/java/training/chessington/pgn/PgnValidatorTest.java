@@ -0,0 +1,118 @@
+package training.chessington.pgn;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class PgnValidatorTest {
+
+    private static final String VALID_GAME = "[Event \"Valid\"]\n[Result \"0-1\"]\n\n1. f3 e5 2. g4 Qh4# 0-1\n\n";
+    private static final String INVALID_GAME = "[Event \"Invalid\"]\r\n[Result \"*\"]\r\n\r\n1. e4 e5 2. Ke3 *\r\n\r\n";
+
+    @Test
+    public void orderedValidationMatchesSequentialReading() throws IOException {
+        // Arrange
+        byte[] pgn = manyGames();
+        List<String> expected = new ArrayList<>();
+        PgnReader reader = new PgnReader(channelFor(pgn));
+        PgnGame game = new PgnGame();
+        while (reader.next(game)) {
+            expected.add(game.getOffset() + " " + game.getError());
+        }
+
+        // Act
+        List<String> actual = new ArrayList<>();
+        long games = new PgnValidator(3, true).validate(channelFor(pgn), report -> actual.add(report.getOffset() + " " + report.getError()));
+
+        // Assert
+        assertThat(games).isEqualTo(expected.size());
+        assertThat(actual).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void unorderedValidationReportsEveryGame() throws IOException {
+        // Arrange
+        byte[] pgn = manyGames();
+        List<String> expected = new ArrayList<>();
+        new PgnValidator(1, true).validate(channelFor(pgn), report -> expected.add(report.getOffset() + " " + report.isValid()));
+
+        // Act
+        List<String> actual = new ArrayList<>();
+        new PgnValidator(4, false).validate(channelFor(pgn), report -> actual.add(report.getOffset() + " " + report.isValid()));
+
+        // Assert
+        assertThat(actual).containsOnlyElementsOf(expected).hasSameSizeAs(expected);
+    }
+
+    @Test
+    public void collectorFailureStopsReaderAndWorkers() throws InterruptedException {
+        // Arrange - more batches than may be in flight, so the reader is still blocked when the collector throws
+        byte[] games = manyGames();
+        ByteArrayOutputStream pgn = new ByteArrayOutputStream();
+        for (int i = 0; i < 12; i++) {
+            pgn.write(games, 0, games.length);
+        }
+
+        // Act
+        Throwable thrown = catchThrowable(() -> new PgnValidator(2, true).validate(channelFor(pgn.toByteArray()), report -> {
+            throw new IllegalStateException("collector failed");
+        }));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pipelineThreadsAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        assertThat(thrown).hasMessage("collector failed");
+        assertThat(pipelineThreadsAlive()).isFalse();
+    }
+
+    @Test
+    public void gameBoundaryIsFoundAfterBlankLineWithEitherLineEnding() {
+        // Arrange
+        byte[] unix = ("1. e4 *\n\n" + VALID_GAME).getBytes(StandardCharsets.US_ASCII);
+        byte[] windows = ("1. e4 *\r\n\r\n[Event \"x\"]\r\n[Site \"y\"]").getBytes(StandardCharsets.US_ASCII);
+        byte[] singleGame = VALID_GAME.getBytes(StandardCharsets.US_ASCII);
+
+        // Act
+        int unixBoundary = PgnValidator.lastGameBoundary(unix, unix.length);
+        int windowsBoundary = PgnValidator.lastGameBoundary(windows, windows.length);
+        int singleGameBoundary = PgnValidator.lastGameBoundary(singleGame, singleGame.length);
+
+        // Assert
+        assertThat(unixBoundary).isEqualTo(9);
+        assertThat(windowsBoundary).isEqualTo(11);
+        assertThat(singleGameBoundary).isEqualTo(0);
+    }
+
+    // Enough games to span several batches, with an invalid one every so often
+    private static byte[] manyGames() {
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 8000; i++) {
+            pgn.append(i % 7 == 3 ? INVALID_GAME : VALID_GAME);
+        }
+        return pgn.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean pipelineThreadsAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("pgn-")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ReadableByteChannel channelFor(byte[] pgn) {
+        return Channels.newChannel(new ByteArrayInputStream(pgn));
+    }
+}